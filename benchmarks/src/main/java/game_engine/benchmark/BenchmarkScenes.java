@@ -0,0 +1,37 @@
+package game_engine.benchmark;
+
+import game_engine.material.Texture;
+import game_engine.math.Float3;
+import game_engine.scene.DemoScene;
+import game_engine.scene.GameObject;
+import game_engine.scene.Scene;
+
+// The demo scene without its scripts, seen from a fixed camera, so every run draws the same frame.
+public abstract class BenchmarkScenes {
+    private static boolean initialized = false;
+
+    public static synchronized void setupDefaultScene() {
+        if (initialized) return;
+        initialized = true;
+
+        DemoScene.setup();
+        Scene.camera.script = null;
+        for (GameObject object : Scene.getObjects()) {
+            object.script = null;
+        }
+        Scene.camera.transform.pos = new Float3(1f, 2.5f, -2f);
+        Scene.camera.transform.rot = new Float3(15f, 10f, 0f);
+        Scene.camera.transform.updateRotation();
+    }
+
+    public static Texture checkerTexture(int width, int height, int colorA, int colorB) {
+        Texture texture = new Texture(width, height);
+        texture.fill(colorA);
+        for (int y = 0; y < height; y += 8) {
+            for (int x = ((y / 8) % 2) * 8; x < width; x += 16) {
+                texture.fill(x, y, 8, 8, colorB);
+            }
+        }
+        return texture;
+    }
+}
@@ -0,0 +1,92 @@
+package game_engine.benchmark;
+
+import game_engine.math.Float2;
+import game_engine.math.Float3;
+import game_engine.math.Maths;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Float3 arithmetic and the Maths helpers used per vertex and per triangle. Every benchmark walks the same
+// seeded inputs, and reports time per element.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"--add-modules=jdk.incubator.vector", "-Djava.awt.headless=true"})
+@State(Scope.Thread)
+public class MathBenchmark {
+    private static final int COUNT = 1024;
+
+    private final Float3[] a = new Float3[COUNT];
+    private final Float3[] b = new Float3[COUNT];
+    private final Float2[] points = new Float2[COUNT];
+    private final Float2 triA = new Float2(-.8f, -.6f);
+    private final Float2 triB = new Float2(.9f, -.4f);
+    private final Float2 triC = new Float2(0f, .9f);
+    private final Float3 bary = new Float3();
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42L);
+        for (int i = 0; i < COUNT; i++) {
+            a[i] = new Float3(random.nextFloat() * 2f - 1f, random.nextFloat() * 2f - 1f, random.nextFloat() * 2f - 1f);
+            b[i] = new Float3(random.nextFloat() * 360f, random.nextFloat() * 360f, random.nextFloat() * 360f);
+            points[i] = new Float2(random.nextFloat() * 2f - 1f, random.nextFloat() * 2f - 1f);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void float3Add(Blackhole bh) {
+        for (int i = 0; i < COUNT; i++) {
+            bh.consume(a[i].add(b[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public float float3Dot() {
+        float sum = 0f;
+        for (int i = 0; i < COUNT; i++) {
+            sum += a[i].dotProduct(b[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void float3Cross(Blackhole bh) {
+        for (int i = 0; i < COUNT; i++) {
+            bh.consume(a[i].crossProduct(b[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void float3Normalize(Blackhole bh) {
+        for (int i = 0; i < COUNT; i++) {
+            bh.consume(a[i].normalize());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void basisVectors(Blackhole bh) {
+        for (int i = 0; i < COUNT; i++) {
+            bh.consume(Maths.getBasisVectors(b[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int pointTriangleTest() {
+        int inside = 0;
+        for (int i = 0; i < COUNT; i++) {
+            if (Maths.pointTriangleTest(triA, triB, triC, points[i], bary)) inside++;
+        }
+        return inside;
+    }
+}
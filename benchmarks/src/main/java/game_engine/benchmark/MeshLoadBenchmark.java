@@ -0,0 +1,112 @@
+package game_engine.benchmark;
+
+import game_engine.scene.MeshFile;
+import game_engine.scene.Model;
+import game_engine.scene.ObjLoader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// Loading the same grid mesh from OBJ text and from a mapped mesh file. Mapping alone does no work per vertex,
+// so mappedAndRead also reads every stream once, which is the fair comparison with parsing everything.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules=jdk.incubator.vector", "-Djava.awt.headless=true"})
+@State(Scope.Benchmark)
+public class MeshLoadBenchmark {
+    // quads per side of the grid, two triangles each
+    @Param({"100", "700"})
+    public int size;
+
+    private Path directory;
+    private Path obj;
+    private Path mesh;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("mesh-load");
+        obj = directory.resolve("grid.obj");
+        mesh = directory.resolve("grid.mesh");
+        writeGrid(obj, size);
+        MeshFile.write(ObjLoader.load(obj), mesh);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(obj);
+        Files.deleteIfExists(mesh);
+        Files.deleteIfExists(directory);
+    }
+
+    // a gently curved grid with a UV and a normal per vertex, like an exported terrain patch
+    private static void writeGrid(Path path, int size) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(path)) {
+            for (int z = 0; z <= size; z++) {
+                for (int x = 0; x <= size; x++) {
+                    out.write(String.format(Locale.ROOT, "v %.6f %.6f %.6f%n", x * .1f, (float) Math.sin(x * .05f) * Math.cos(z * .05f), z * .1f));
+                }
+            }
+            for (int z = 0; z <= size; z++) {
+                for (int x = 0; x <= size; x++) {
+                    out.write(String.format(Locale.ROOT, "vt %.6f %.6f%n", x / (float) size, z / (float) size));
+                }
+            }
+            for (int z = 0; z <= size; z++) {
+                for (int x = 0; x <= size; x++) {
+                    out.write(String.format(Locale.ROOT, "vn %.6f %.6f %.6f%n", (float) -Math.cos(x * .05f) * .05f, 1f, (float) Math.sin(z * .05f) * .05f));
+                }
+            }
+            for (int z = 0; z < size; z++) {
+                for (int x = 0; x < size; x++) {
+                    int a = (z * (size + 1)) + x + 1;
+                    int b = a + 1;
+                    int c = a + size + 1;
+                    int d = c + 1;
+                    out.write(String.format(Locale.ROOT, "f %d/%d/%d %d/%d/%d %d/%d/%d %d/%d/%d%n", a, a, a, c, c, c, d, d, d, b, b, b));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public Model obj() throws IOException {
+        return ObjLoader.load(obj);
+    }
+
+    @Benchmark
+    public Model mapped() throws IOException {
+        return MeshFile.load(mesh);
+    }
+
+    @Benchmark
+    public double mappedAndRead() throws IOException {
+        Model model = MeshFile.load(mesh);
+        double sum = 0d;
+        FloatBuffer positions = model.positions();
+        for (int i = 0; i < positions.limit(); i++) {
+            sum += positions.get(i);
+        }
+        FloatBuffer uvs = model.uvs();
+        for (int i = 0; i < uvs.limit(); i++) {
+            sum += uvs.get(i);
+        }
+        FloatBuffer normals = model.normals();
+        for (int i = 0; i < normals.limit(); i++) {
+            sum += normals.get(i);
+        }
+        IntBuffer triangles = model.triangles();
+        for (int i = 0; i < triangles.limit(); i++) {
+            sum += triangles.get(i);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,83 @@
+package game_engine.benchmark;
+
+import game_engine.math.Float3;
+import game_engine.physics.RayBatch;
+import game_engine.physics.RigidTransform3D;
+import game_engine.physics.basic_collision;
+import game_engine.physics.raycast;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Collision queries, single and batched raycasts against the benchmark scene, and the rigid transform fit.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"--add-modules=jdk.incubator.vector", "-Djava.awt.headless=true"})
+@State(Scope.Thread)
+public class PhysicsBenchmark {
+    private static final int POINTS = 64;
+    private static final int RAYS = 256;
+
+    private final Float3[] cloudP = new Float3[POINTS];
+    private final Float3[] cloudQ = new Float3[POINTS];
+    private final Float3[] probes = new Float3[RAYS];
+    private final Float3[] directions = new Float3[RAYS];
+    private final RayBatch batch = new RayBatch(RAYS);
+
+    @Setup
+    public void setup() {
+        BenchmarkScenes.setupDefaultScene();
+        Random random = new Random(42L);
+        // Q is P rotated 30 degrees about y and moved, so the fit has a known answer
+        double cos = Math.cos(Math.toRadians(30d));
+        double sin = Math.sin(Math.toRadians(30d));
+        for (int i = 0; i < POINTS; i++) {
+            float x = random.nextFloat() * 4f - 2f;
+            float y = random.nextFloat() * 4f - 2f;
+            float z = random.nextFloat() * 4f - 2f;
+            cloudP[i] = new Float3(x, y, z);
+            cloudQ[i] = new Float3((float) (cos * x + sin * z) + 1f, y - .5f, (float) (-sin * x + cos * z) + 2f);
+        }
+        Float3 origin = new Float3(0f, 1.5f, 0f);
+        for (int i = 0; i < RAYS; i++) {
+            probes[i] = new Float3(random.nextFloat() * 16f - 8f, random.nextFloat() * 4f, random.nextFloat() * 20f);
+            directions[i] = new Float3(random.nextFloat() * 2f - 1f, random.nextFloat() - .7f, random.nextFloat()).normalize();
+            batch.add(origin, directions[i], 50f);
+        }
+    }
+
+    @Benchmark
+    public double[][] rigidTransform() {
+        return RigidTransform3D.rigid_transform_3d(cloudP, cloudQ);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public int collision() {
+        int hits = 0;
+        for (int i = 0; i < RAYS; i++) {
+            if (basic_collision.collision(probes[i])) hits++;
+        }
+        return hits;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public void raycastSingle(Blackhole bh) {
+        Float3 origin = new Float3(0f, 1.5f, 0f);
+        for (int i = 0; i < RAYS; i++) {
+            bh.consume(raycast.raycast(origin, directions[i], 50d));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RAYS)
+    public RayBatch raycastBatch() {
+        batch.trace();
+        return batch;
+    }
+}
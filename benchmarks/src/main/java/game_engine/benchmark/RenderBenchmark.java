@@ -0,0 +1,54 @@
+package game_engine.benchmark;
+
+import game_engine.render.FrameSnapshot;
+import game_engine.render.PixelKernel;
+import game_engine.render.RenderTarget;
+import game_engine.render.Renderer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Whole frames of the benchmark scene rendered headlessly, per resolution, shading path and pixel kernel.
+// The snapshot is captured once, so only the renderer is measured.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules=jdk.incubator.vector", "-Djava.awt.headless=true"})
+@State(Scope.Thread)
+public class RenderBenchmark {
+    @Param({"320x180", "675x450", "1280x720"})
+    public String resolution;
+    @Param({"forward", "deferred"})
+    public String shading;
+    @Param({"vector", "scalar"})
+    public String kernel;
+
+    private Renderer renderer;
+    private RenderTarget target;
+    private FrameSnapshot frame;
+
+    @Setup
+    public void setup() {
+        BenchmarkScenes.setupDefaultScene();
+        String[] size = resolution.split("x");
+        target = new RenderTarget(Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+        renderer = new Renderer(90f);
+        renderer.deferredShading = shading.equals("deferred");
+        // falls back to the scalar kernel when the vector module is missing, which the kernel name will show
+        renderer.kernel = kernel.equals("scalar") ? PixelKernel.scalar() : PixelKernel.get();
+        frame = FrameSnapshot.capture();
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.println("kernel: " + renderer.kernel.describe());
+        renderer.shutdown();
+    }
+
+    @Benchmark
+    public int[] renderFrame() {
+        renderer.render(frame, target);
+        return target.colorBuffer;
+    }
+}
@@ -0,0 +1,69 @@
+package game_engine.benchmark;
+
+import game_engine.material.Texture;
+import game_engine.math.Float2;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Texture lookups at seeded coordinates, for a power-of-two size (masked wrap) and an odd one (floorMod wrap).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"--add-modules=jdk.incubator.vector", "-Djava.awt.headless=true"})
+@State(Scope.Thread)
+public class TextureBenchmark {
+    private static final int COUNT = 1024;
+
+    @Param({"64", "100"})
+    public int size;
+
+    private Texture texture;
+    private final float[] u = new float[COUNT];
+    private final float[] v = new float[COUNT];
+    private final Float2[] uvs = new Float2[COUNT];
+
+    @Setup
+    public void setup() {
+        texture = BenchmarkScenes.checkerTexture(size, size, 0x7f7fff, 0x0000ff);
+        Random random = new Random(42L);
+        for (int i = 0; i < COUNT; i++) {
+            // a few repeats either side of the texture, as tiled materials produce
+            u[i] = random.nextFloat() * 8f - 4f;
+            v[i] = random.nextFloat() * 8f - 4f;
+            uvs[i] = new Float2(u[i], v[i]);
+        }
+        texture.mipLevels();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int sampleRGB() {
+        int sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            sum += texture.sampleRGB(u[i], v[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public int sampleRGBMip() {
+        int sum = 0;
+        for (int i = 0; i < COUNT; i++) {
+            sum += texture.sampleRGB(u[i], v[i], i & 3);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COUNT)
+    public void sampleFloat3(Blackhole bh) {
+        for (int i = 0; i < COUNT; i++) {
+            bh.consume(texture.sample(uvs[i]));
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package game_engine.regression;
+
+import game_engine.material.Material;
+import game_engine.material.Texture;
+import game_engine.material.shader.LitShader;
+import game_engine.material.shader.UnlitShader;
+import game_engine.math.Float2;
+import game_engine.math.Float3;
+import game_engine.scene.DemoScene;
+import game_engine.scene.GameObject;
+import game_engine.scene.Scene;
+import game_engine.script.FixedTimestep;
+import game_engine.script.Script;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+// A scene the harness can rebuild from nothing: set up, advanced by a fixed number of frames of a fixed
+// length with its scripts running, then looked at from each of its camera poses with the scripts stopped.
+public class ReferenceScene {
+    public static final double FRAME_TIME = 1d / 60d;
+
+    public static class Pose {
+        public final String name;
+        public final Float3 pos;
+        public final Float3 rot;
+
+        // a null position keeps the camera where the scripts left it
+        public Pose(String name, Float3 pos, Float3 rot) {
+            this.name = name;
+            this.pos = pos;
+            this.rot = rot;
+        }
+    }
+
+    public final String name;
+    public final int simulatedFrames;
+    public final List<Pose> poses = new ArrayList<>();
+    private final Runnable setup;
+    private Float3 simulatedPos;
+    private Float3 simulatedRot;
+
+    public ReferenceScene(String name, int simulatedFrames, Runnable setup) {
+        this.name = name;
+        this.simulatedFrames = simulatedFrames;
+        this.setup = setup;
+    }
+
+    public ReferenceScene pose(String name, Float3 pos, Float3 rot) {
+        poses.add(new Pose(name, pos, rot));
+        return this;
+    }
+
+    public static List<ReferenceScene> all() {
+        List<ReferenceScene> scenes = new ArrayList<>();
+        scenes.add(new ReferenceScene("demo", 90, DemoScene::setup)
+                .pose("spawn", null, null)
+                .pose("overview", new Float3(0f, 9f, -6f), new Float3(-35f, 0f, 0f))
+                .pose("close", new Float3(3.2f, 1.4f, 3.4f), new Float3(-10f, 45f, 0f)));
+        scenes.add(new ReferenceScene("grid", 30, ReferenceScene::setupGrid)
+                .pose("front", new Float3(0f, 4f, -8f), new Float3(-15f, 0f, 0f))
+                .pose("grazing", new Float3(-9f, .6f, -1f), new Float3(2f, 60f, 0f))
+                .pose("inside", new Float3(.4f, 1f, 4.3f), new Float3(0f, 10f, 0f)));
+        return scenes;
+    }
+
+    // Rotating cubes in rows receding from the camera behind a checkered floor: overlapping depths for the
+    // depth test and overdraw, textures at every distance for mip selection, and cubes close enough to clip.
+    private static void setupGrid() {
+        Scene.initializeScene();
+        Scene.setSunAngle(new Float2(50f, 140f));
+        Scene.envLight = .15f;
+
+        Texture floorTex = new Texture(32, 32);
+        floorTex.fill(0x404040);
+        for (int y = 0; y < 32; y += 4) {
+            for (int x = ((y / 4) % 2) * 4; x < 32; x += 8) {
+                floorTex.fill(x, y, 4, 4, 0xc0c0c0);
+            }
+        }
+        Texture cubeTex = new Texture(24, 48);
+        cubeTex.fill(0xffaa33);
+        cubeTex.fill(0, 0, 12, 48, 0x3366ff);
+        cubeTex.fill(0, 24, 24, 6, 0x22cc66);
+
+        Material floorMat = new Material(new LitShader(), floorTex, 6f, 6f);
+        Material litMat = new Material(new LitShader(), cubeTex, 1f, 1f);
+        Material unlitMat = new Material(new UnlitShader(), cubeTex, 2f, 2f);
+
+        Scene.camera = new GameObject("cam", "", 0f, 3f, -8f, new Material(), null);
+        Scene.add(new GameObject("floor", "quad", 0f, 0f, 8f, -90f, 0f, 0f, 14f, floorMat, null));
+        for (int row = 0; row < 5; row++) {
+            for (int column = -3; column <= 3; column++) {
+                Material mat = ((row + column) % 2 == 0) ? litMat : unlitMat;
+                float scale = .5f + (.1f * ((row * 7 + column + 3) % 5));
+                Scene.add(new GameObject("cube" + row + "_" + column, "cube",
+                        column * 2.2f, scale + (row * .4f), row * 3f,
+                        row * 13f, column * 17f, (row + column) * 7f, scale, mat, new SpinScript()));
+            }
+        }
+    }
+
+    private static class SpinScript extends Script {
+        @Override
+        public void update(GameObject obj) {
+            obj.transform.rotate(new Float3(20f, 45f, 10f).scale(deltaTime));
+        }
+    }
+
+    public void build() {
+        Scene.clear();
+        setup.run();
+
+        // the demo's scripts print from their updates; keep the report readable
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            for (int frame = 0; frame < simulatedFrames; frame++) {
+                Script.deltaTime = FRAME_TIME;
+                Script.time += FRAME_TIME;
+                FixedTimestep.advance(FRAME_TIME);
+                Scene.updateScripts();
+            }
+        } finally {
+            System.setOut(out);
+        }
+        simulatedPos = copy(Scene.camera.transform.pos);
+        simulatedRot = copy(Scene.camera.transform.rot);
+    }
+
+    public void apply(Pose pose) {
+        Scene.camera.transform.pos = copy((pose.pos == null) ? simulatedPos : pose.pos);
+        Scene.camera.transform.rot = copy((pose.rot == null) ? simulatedRot : pose.rot);
+        Scene.camera.transform.updateRotation();
+    }
+
+    private static Float3 copy(Float3 f3) {
+        return new Float3(f3.x, f3.y, f3.z);
+    }
+}
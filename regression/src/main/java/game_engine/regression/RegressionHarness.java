@@ -0,0 +1,304 @@
+package game_engine.regression;
+
+import game_engine.material.shader.Shader;
+import game_engine.material.shader.debug.DepthShader;
+import game_engine.material.shader.debug.NormalsShader;
+import game_engine.material.shader.debug.UVShader;
+import game_engine.render.FrameSnapshot;
+import game_engine.render.FrameTimeHistogram;
+import game_engine.render.RenderTarget;
+import game_engine.render.Renderer;
+import game_engine.scene.Scene;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+// Renders every reference scene from every pose in every variant, compares each image with its golden and
+// each median frame time with the stored baseline, and exits with status 1 if anything regressed.
+//
+// Options:
+//   update-goldens        write the current images as the new goldens instead of comparing
+//   update-baseline       write the current frame times as the new baseline instead of comparing
+//   no-timing             skip the frame-time comparison, e.g. on a shared machine
+//   golden=<dir>          golden images, default golden
+//   baseline=<file>       baseline frame times, default baseline.properties
+//   out=<dir>             actual and diff images of failed cases, default target/regression
+//   pixel-tolerance=<n>   largest per-channel difference that still counts as equal, default 2
+//   max-diff=<fraction>   fraction of pixels allowed to differ, default 0.0005
+//   time-threshold=<f>    allowed median slowdown over the baseline, default 0.5 (50%); a single JVM run
+//                         varies by 20-30% per case on a busy machine, use less only on a quiet one
+public class RegressionHarness {
+    private static final int WIDTH = 675;
+    private static final int HEIGHT = 450;
+    // a scene's cases are all warmed up before any is timed, then timed in interleaved rounds so that a slow
+    // stretch of the machine is spread over all of them instead of landing on one
+    private static final int WARMUP_FRAMES = 10;
+    private static final int ROUNDS = 5;
+    private static final int FRAMES_PER_ROUND = 8;
+    // timings this close to the baseline never fail, whatever the ratio
+    private static final double TIME_SLACK_MS = .5d;
+    // baseline key of the calibration workload, which scales the baseline to the current speed of the machine
+    private static final String CALIBRATION = "calibration";
+
+    private static class Variant {
+        final String name;
+        final boolean deferred;
+        final Supplier<Shader> override;
+
+        Variant(String name, boolean deferred, Supplier<Shader> override) {
+            this.name = name;
+            this.deferred = deferred;
+            this.override = override;
+        }
+    }
+
+    private static final Variant[] VARIANTS = {
+            new Variant("forward", false, null),
+            new Variant("deferred", true, null),
+            new Variant("normals", false, NormalsShader::new),
+            new Variant("uv", false, UVShader::new),
+            new Variant("depth", false, DepthShader::new),
+    };
+
+    private boolean updateGoldens = false;
+    private boolean updateBaseline = false;
+    private boolean timing = true;
+    private File goldenDir = new File("golden");
+    private File baselineFile = new File("baseline.properties");
+    private File outDir = new File("target/regression");
+    private int pixelTolerance = 2;
+    private double maxDiffFraction = .0005d;
+    private double timeThreshold = .5d;
+
+    private static class Case {
+        final String name;
+        final Variant variant;
+        final FrameSnapshot frame;
+        final FrameTimeHistogram times = new FrameTimeHistogram(ROUNDS * FRAMES_PER_ROUND);
+
+        Case(String name, Variant variant, FrameSnapshot frame) {
+            this.name = name;
+            this.variant = variant;
+            this.frame = frame;
+        }
+    }
+
+    private final List<String> failures = new ArrayList<>();
+
+    public static void main(String[] args) throws IOException {
+        RegressionHarness harness = new RegressionHarness();
+        harness.parse(args);
+        System.exit(harness.run() ? 0 : 1);
+    }
+
+    private void parse(String[] args) {
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            String value = (option.length > 1) ? option[1] : "";
+            switch (option[0]) {
+                case "update-goldens": updateGoldens = true; break;
+                case "update-baseline": updateBaseline = true; break;
+                case "no-timing": timing = false; break;
+                case "golden": goldenDir = new File(value); break;
+                case "baseline": baselineFile = new File(value); break;
+                case "out": outDir = new File(value); break;
+                case "pixel-tolerance": pixelTolerance = Integer.parseInt(value); break;
+                case "max-diff": maxDiffFraction = Double.parseDouble(value); break;
+                case "time-threshold": timeThreshold = Double.parseDouble(value); break;
+                default: throw new IllegalArgumentException("unknown option " + arg);
+            }
+        }
+    }
+
+    public boolean run() throws IOException {
+        Properties baseline = new Properties();
+        if (baselineFile.exists()) {
+            try (InputStream in = new FileInputStream(baselineFile)) {
+                baseline.load(in);
+            }
+        } else if (timing && !updateBaseline) {
+            failures.add("no baseline at " + baselineFile + "; run with update-baseline");
+        }
+        List<Case> cases = new ArrayList<>();
+        List<String> images = new ArrayList<>();
+        Renderer renderer = new Renderer(90f);
+        RenderTarget target = new RenderTarget(WIDTH, HEIGHT);
+        try {
+            for (ReferenceScene scene : ReferenceScene.all()) {
+                scene.build();
+                List<Case> sceneCases = new ArrayList<>();
+                for (ReferenceScene.Pose pose : scene.poses) {
+                    scene.apply(pose);
+                    for (Variant variant : VARIANTS) {
+                        if (variant.override != null) Scene.camera.mat.shader = variant.override.get();
+                        sceneCases.add(new Case(scene.name + "-" + pose.name + "-" + variant.name, variant, FrameSnapshot.capture()));
+                    }
+                }
+                for (Case c : sceneCases) {
+                    render(renderer, c, target);
+                    images.add(checkImage(c.name, target));
+                    for (int i = 0; i < WARMUP_FRAMES; i++) {
+                        render(renderer, c, target);
+                    }
+                }
+                if (timing || updateBaseline) time(renderer, sceneCases, target);
+                cases.addAll(sceneCases);
+            }
+        } finally {
+            renderer.shutdown();
+        }
+
+        Properties measured = new Properties();
+        double speed = 1d;
+        if (timing || updateBaseline) {
+            double calibrationMs = calibrate();
+            measured.setProperty(CALIBRATION, String.format(Locale.ROOT, "%.3f", calibrationMs));
+            String stored = baseline.getProperty(CALIBRATION);
+            if (stored != null) speed = calibrationMs / Double.parseDouble(stored);
+            System.out.println(String.format(Locale.ROOT, "calibration %.2f ms, baseline times scaled by %.2f", calibrationMs, speed));
+        }
+        for (int i = 0; i < cases.size(); i++) {
+            Case c = cases.get(i);
+            double medianMs = c.times.percentileMs(50d);
+            measured.setProperty(c.name, String.format(Locale.ROOT, "%.3f", medianMs));
+            String time = (c.times.count() == 0L) ? "" : checkTime(c.name, medianMs, baseline, speed);
+            System.out.println(String.format(Locale.ROOT, "%-28s %-28s %s", c.name, images.get(i), time));
+        }
+
+        if (updateBaseline) {
+            try (OutputStream out = new FileOutputStream(baselineFile)) {
+                measured.store(out, "median frame time in ms per case, " + WIDTH + "x" + HEIGHT + ", "
+                        + Runtime.getRuntime().availableProcessors() + " cpus, " + System.getProperty("java.vm.name")
+                        + " " + System.getProperty("java.version"));
+            }
+            System.out.println("baseline written to " + baselineFile);
+        }
+        if (failures.isEmpty()) {
+            System.out.println("regression check passed");
+            return true;
+        }
+        System.out.println();
+        System.out.println("REGRESSION CHECK FAILED, " + failures.size() + " problem(s):");
+        for (String failure : failures) {
+            System.out.println("  " + failure);
+        }
+        return false;
+    }
+
+    private static void time(Renderer renderer, List<Case> cases, RenderTarget target) {
+        for (int round = 0; round < ROUNDS; round++) {
+            for (Case c : cases) {
+                for (int i = 0; i < FRAMES_PER_ROUND; i++) {
+                    long start = System.nanoTime();
+                    render(renderer, c, target);
+                    c.times.record(System.nanoTime() - start);
+                }
+            }
+        }
+    }
+
+    // Median time of a fixed float workload that doesn't touch the engine, measured the same way as the
+    // cases: a busy or throttled machine slows it down as much as it slows the renderer, a slower renderer doesn't.
+    private static double calibrate() {
+        float[] data = new float[1 << 18];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (i % 977) * .001f;
+        }
+        FrameTimeHistogram times = new FrameTimeHistogram(ROUNDS * FRAMES_PER_ROUND);
+        for (int run = 0; run < WARMUP_FRAMES + (ROUNDS * FRAMES_PER_ROUND); run++) {
+            long start = System.nanoTime();
+            for (int pass = 0; pass < 8; pass++) {
+                for (int i = 0; i < data.length; i++) {
+                    data[i] = (data[i] * .999f) + (float) Math.sqrt(data[i] + pass);
+                }
+            }
+            if (run >= WARMUP_FRAMES) times.record(System.nanoTime() - start);
+        }
+        return times.percentileMs(50d);
+    }
+
+    private static void render(Renderer renderer, Case c, RenderTarget target) {
+        renderer.shaderOverride = (c.variant.override != null);
+        renderer.deferredShading = c.variant.deferred;
+        renderer.render(c.frame, target);
+    }
+
+    private String checkImage(String name, RenderTarget target) throws IOException {
+        File golden = new File(goldenDir, name + ".png");
+        BufferedImage actual = target.toImage();
+        if (updateGoldens) {
+            goldenDir.mkdirs();
+            ImageIO.write(actual, "png", golden);
+            return "golden written";
+        }
+        if (!golden.exists()) {
+            failures.add(name + ": no golden image at " + golden + "; run with update-goldens");
+            return "NO GOLDEN";
+        }
+
+        BufferedImage expected = ImageIO.read(golden);
+        if (expected.getWidth() != target.width || expected.getHeight() != target.height) {
+            failures.add(name + ": golden is " + expected.getWidth() + "x" + expected.getHeight());
+            return "SIZE MISMATCH";
+        }
+        BufferedImage diff = new BufferedImage(target.width, target.height, BufferedImage.TYPE_INT_RGB);
+        int differing = 0;
+        int largest = 0;
+        for (int y = 0; y < target.height; y++) {
+            for (int x = 0; x < target.width; x++) {
+                int a = expected.getRGB(x, y);
+                int b = target.getRGB(x, y);
+                int delta = Math.max(Math.abs(((a >> 16) & 0xff) - ((b >> 16) & 0xff)),
+                        Math.max(Math.abs(((a >> 8) & 0xff) - ((b >> 8) & 0xff)), Math.abs((a & 0xff) - (b & 0xff))));
+                largest = Math.max(largest, delta);
+                if (delta > pixelTolerance) {
+                    differing++;
+                    diff.setRGB(x, y, 0xff0000);
+                } else {
+                    // matching pixels are kept as a dim copy so the differences can be located
+                    diff.setRGB(x, y, (b >> 2) & 0x3f3f3f);
+                }
+            }
+        }
+        double fraction = differing / (double) (target.width * target.height);
+        String result = String.format(Locale.ROOT, "%d px differ (max %d)", differing, largest);
+        if (fraction > maxDiffFraction) {
+            outDir.mkdirs();
+            ImageIO.write(actual, "png", new File(outDir, name + "-actual.png"));
+            ImageIO.write(diff, "png", new File(outDir, name + "-diff.png"));
+            failures.add(String.format(Locale.ROOT, "%s: %d pixels (%.3f%%) differ from the golden by more than %d, see %s",
+                    name, differing, fraction * 100d, pixelTolerance, new File(outDir, name + "-diff.png")));
+            return "IMAGE DIFF " + result;
+        }
+        return "ok, " + result;
+    }
+
+    private String checkTime(String name, double medianMs, Properties baseline, double speed) {
+        String time = String.format(Locale.ROOT, "%7.2f ms", medianMs);
+        String stored = baseline.getProperty(name);
+        if (stored == null) {
+            if (timing && !updateBaseline) failures.add(name + ": no baseline frame time");
+            return time;
+        }
+        double baselineMs = Double.parseDouble(stored) * speed;
+        double change = (baselineMs == 0d) ? 0d : (medianMs / baselineMs) - 1d;
+        time += String.format(Locale.ROOT, " (baseline %.2f, %+.0f%%)", baselineMs, change * 100d);
+        if (timing && !updateBaseline && change > timeThreshold && medianMs - baselineMs > TIME_SLACK_MS) {
+            failures.add(String.format(Locale.ROOT, "%s: median frame %.2f ms is %.0f%% over the baseline %.2f ms",
+                    name, medianMs, change * 100d, baselineMs));
+            return time + " SLOWER";
+        }
+        return time;
+    }
+}
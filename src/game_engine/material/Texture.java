@@ -2,21 +2,28 @@ package game_engine.material;
 
 import game_engine.math.Float2;
 import game_engine.math.Float3;
-import game_engine.math.Maths;
 
-import java.awt.*;
-import java.awt.image.BufferedImage;
+import java.util.Arrays;
 
 public class Texture {
     public final int width;
     public final int height;
-    private final BufferedImage texture;
-    private final Graphics2D g;
+    // packed 0xRRGGBB texels, row major; private so every write goes through a method that drops the mips
+    private final int[] pixels;
+    private final boolean powerOfTwo;
+    private final int maskX;
+    private final int maskY;
+    // Rebuilt lazily on the first filtered sample after the texels change. Texel writes and the build share this
+    // object's monitor, so a build never reads a half-written fill and a write never lands between a build
+    // reading the texels and publishing its chain.
+    private volatile MipChain mips;
     public Texture(int width, int height) {
         this.width = width;
         this.height = height;
-        this.texture = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-        this.g = this.texture.createGraphics();
+        this.pixels = new int[width * height];
+        this.powerOfTwo = isPowerOfTwo(width) && isPowerOfTwo(height);
+        this.maskX = width - 1;
+        this.maskY = height - 1;
 
         int halfWidth = width / 2;
         int halfHeight = height / 2;
@@ -25,22 +32,136 @@ public class Texture {
         this.fill(halfWidth, halfHeight, halfWidth, halfHeight, 0xff00ff);
     }
 
+    private static boolean isPowerOfTwo(int v) {
+        return v > 0 && (v & (v - 1)) == 0;
+    }
+
     public Float3 sample(Float2 uv) {
-        uv = uv.modulo(1f);
-        int x = Maths.clamp(0, width - 1, (int) (uv.x * width));
-        int y = Maths.clamp(0, height - 1, (int) (uv.y * height));
-        return Float3.fromRGB(texture.getRGB(x, y));
+        return Float3.fromRGB(sampleRGB(uv.x, uv.y));
+    }
+    // wrapping nearest-neighbour lookup, returns packed 0xRRGGBB
+    public int sampleRGB(float u, float v) {
+        int x = (int) Math.floor(u * width);
+        int y = (int) Math.floor(v * height);
+        if (powerOfTwo) {
+            return pixels[((y & maskY) * width) + (x & maskX)];
+        }
+        return pixels[(Math.floorMod(y, height) * width) + Math.floorMod(x, width)];
+    }
+    // same lookup on mip level `level`, clamped to the smallest level
+    public int sampleRGB(float u, float v, int level) {
+        if (level <= 0) {
+            return sampleRGB(u, v);
+        }
+        MipChain chain = mipChain();
+        level = Math.min(level, chain.pixels.length - 1);
+        int w = chain.widths[level];
+        int h = chain.heights[level];
+        int x = (int) Math.floor(u * w);
+        int y = (int) Math.floor(v * h);
+        if (powerOfTwo) {
+            return chain.pixels[level][((y & (h - 1)) * w) + (x & (w - 1))];
+        }
+        return chain.pixels[level][(Math.floorMod(y, h) * w) + Math.floorMod(x, w)];
+    }
+    public int getRGB(int x, int y) {
+        return pixels[(y * width) + x];
+    }
+    public int mipLevels() {
+        return mipChain().pixels.length;
+    }
+
+    private MipChain mipChain() {
+        MipChain chain = mips;
+        return (chain != null) ? chain : buildMips();
+    }
+    // Each level is a 2x2 box filter of the one above it, down to 1x1.
+    private synchronized MipChain buildMips() {
+        MipChain chain = mips;
+        if (chain != null) {
+            return chain;
+        }
+        TextureUploadEvent event = new TextureUploadEvent();
+        event.begin();
+        int levels = 1;
+        for (int w = width, h = height; w > 1 || h > 1; w = Math.max(1, w / 2), h = Math.max(1, h / 2)) {
+            levels++;
+        }
+        chain = new MipChain(levels);
+        chain.pixels[0] = pixels;
+        chain.widths[0] = width;
+        chain.heights[0] = height;
+        for (int level = 1; level < levels; level++) {
+            int[] src = chain.pixels[level - 1];
+            int srcW = chain.widths[level - 1];
+            int srcH = chain.heights[level - 1];
+            int w = Math.max(1, srcW / 2);
+            int h = Math.max(1, srcH / 2);
+            int[] dst = new int[w * h];
+            for (int y = 0; y < h; y++) {
+                int y0 = Math.min(y * 2, srcH - 1) * srcW;
+                int y1 = Math.min((y * 2) + 1, srcH - 1) * srcW;
+                for (int x = 0; x < w; x++) {
+                    int x0 = Math.min(x * 2, srcW - 1);
+                    int x1 = Math.min((x * 2) + 1, srcW - 1);
+                    dst[(y * w) + x] = average(src[y0 + x0], src[y0 + x1], src[y1 + x0], src[y1 + x1]);
+                }
+            }
+            chain.pixels[level] = dst;
+            chain.widths[level] = w;
+            chain.heights[level] = h;
+        }
+        mips = chain;
+        if (event.shouldCommit()) {
+            event.width = width;
+            event.height = height;
+            event.levels = levels;
+            event.commit();
+        }
+        return chain;
+    }
+    private static int average(int a, int b, int c, int d) {
+        int r = (((a >> 16) & 0xff) + ((b >> 16) & 0xff) + ((c >> 16) & 0xff) + ((d >> 16) & 0xff) + 2) >> 2;
+        int g = (((a >> 8) & 0xff) + ((b >> 8) & 0xff) + ((c >> 8) & 0xff) + ((d >> 8) & 0xff) + 2) >> 2;
+        int bl = ((a & 0xff) + (b & 0xff) + (c & 0xff) + (d & 0xff) + 2) >> 2;
+        return (r << 16) | (g << 8) | bl;
     }
 
-    public void clear() {
-        g.setColor(Color.BLACK);
-        g.fillRect(0, 0, width, height);
+    public synchronized void clear() {
+        Arrays.fill(pixels, 0x000000);
+        mips = null;
+    }
+    public synchronized void setRGB(int x, int y, int color) {
+        pixels[(y * width) + x] = color & 0xffffff;
+        mips = null;
     }
-    public void fill(int color) {
-        this.fill(0, 0, width, height, color);
+    public synchronized void fill(int color) {
+        Arrays.fill(pixels, color & 0xffffff);
+        mips = null;
     }
-    public void fill(int x, int y, int width, int height, int color) {
-        g.setColor(new Color(color));
-        g.fillRect(x, y, width, height);
+    public synchronized void fill(int x, int y, int width, int height, int color) {
+        int minX = Math.max(0, x);
+        int minY = Math.max(0, y);
+        int maxX = Math.min(this.width, x + width);
+        int maxY = Math.min(this.height, y + height);
+        if (minX >= maxX) {
+            return;
+        }
+        for (int row = minY; row < maxY; row++) {
+            Arrays.fill(pixels, (row * this.width) + minX, (row * this.width) + maxX, color & 0xffffff);
+        }
+        mips = null;
+    }
+
+    private static class MipChain {
+        private final int[][] pixels;
+        private final int[] widths;
+        private final int[] heights;
+
+        private MipChain(int levels) {
+            this.pixels = new int[levels][];
+            this.widths = new int[levels];
+            this.heights = new int[levels];
+        }
     }
 }
@@ -0,0 +1,22 @@
+package game_engine.material;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("game_engine.TextureUpload")
+@Label("Texture Upload")
+@Description("A texture's mip chain rebuilt from its pixels after they were written")
+@Category({"Game Engine", "Material"})
+@Enabled(false)
+class TextureUploadEvent extends Event {
+    @Label("Width")
+    int width;
+    @Label("Height")
+    int height;
+    @Label("Mip Levels")
+    int levels;
+}
@@ -18,14 +18,32 @@ public class FragmentData {
     public int object;
     public int triangle;
     public Float3 worldPos;
+    public int mipLevel;
+    // the frame's lighting and script time, which shaders read instead of the live scene
+    public Float3 dirToSun = new Float3();
+    public float envLight;
+    public double time;
 
+    public FragmentData() {
+        this.screenUV = new Float2();
+        this.weights = new Float3();
+        this.texUV = new Float2();
+        this.worldPos = new Float3();
+    }
     public FragmentData(Float2 screenUV, Float3 weights, Material mat, Float2[] UVs, Float3 worldNormal, float depth, int oi, int ti) {
-        this.screenUV = screenUV;
-        this.weights = weights;
+        this();
+        set(screenUV.x, screenUV.y, weights.x, weights.y, weights.z, mat, UVs, Scene.getObject(oi).getTriVertexes(ti), worldNormal, depth, oi, ti);
+    }
+
+    public void set(float screenU, float screenV, float wA, float wB, float wC, Material mat, Float2[] UVs, Float3[] worldTri, Float3 worldNormal, float depth, int oi, int ti) {
+        this.screenUV.set(screenU, screenV);
+        this.weights.set(wA, wB, wC);
 
         this.mat = mat;
         this.triUVs = UVs;
-        this.texUV = mat.convertUV(UVs[0].scale(weights.x).add(UVs[1].scale(weights.y)).add(UVs[2].scale(weights.z)));
+        this.texUV.set(
+                ((UVs[0].x * wA) + (UVs[1].x * wB) + (UVs[2].x * wC)) * mat.scale.x,
+                ((UVs[0].y * wA) + (UVs[1].y * wB) + (UVs[2].y * wC)) * mat.scale.y);
         this.tex = (mat.tex == null) ? Scene.errorMat.tex : mat.tex;
 
         this.worldNormal = worldNormal;
@@ -33,7 +51,10 @@ public class FragmentData {
 
         this.object = oi;
         this.triangle = ti;
-        Float3[] tri = Scene.getObject(oi).getTriVertexes(ti);
-        this.worldPos = tri[0].scale(weights.x).add(tri[1].scale(weights.y)).add(tri[2].scale(weights.z));
+        this.mipLevel = 0;
+        this.worldPos.set(
+                (worldTri[0].x * wA) + (worldTri[1].x * wB) + (worldTri[2].x * wC),
+                (worldTri[0].y * wA) + (worldTri[1].y * wB) + (worldTri[2].y * wC),
+                (worldTri[0].z * wA) + (worldTri[1].z * wB) + (worldTri[2].z * wC));
     }
 }
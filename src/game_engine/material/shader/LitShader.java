@@ -1,11 +1,26 @@
 package game_engine.material.shader;
 
+import game_engine.material.Texture;
 import game_engine.math.Float3;
 
 public class LitShader extends Shader {
     @Override
     public Float3 fragment(FragmentData f) {
-        float light = calculateLightIntensity(f.worldNormal);
-        return f.tex.sample(f.texUV).scale(light);
+        float light = calculateLightIntensity(f.worldNormal, f.dirToSun, f.envLight);
+        return Float3.fromRGB(f.tex.sampleRGB(f.texUV.x, f.texUV.y, f.mipLevel)).scale(light);
+    }
+
+    @Override
+    public boolean canDiscard() {
+        return false;
+    }
+
+    @Override
+    public void shadeSpan(ShadeSpan span) {
+        Texture tex = span.tex;
+        for (int i = 0; i < span.count; i++) {
+            span.colors[i] = tex.sampleRGB(span.texU[i], span.texV[i], span.mipLevel[i]);
+        }
+        span.scaleColors(calculateLightIntensity(span.worldNormal, span.dirToSun, span.envLight));
     }
 }
@@ -0,0 +1,152 @@
+package game_engine.material.shader;
+
+import game_engine.material.Material;
+import game_engine.material.Texture;
+import game_engine.math.Float2;
+import game_engine.math.Float3;
+import game_engine.scene.Scene;
+
+import java.util.Arrays;
+
+// A run of pixels from one row of one triangle, shaded in a single call. Per-pixel attributes are kept in
+// parallel primitive arrays; shaders write packed 0xRRGGBB colors, or DISCARD, into colors.
+public class ShadeSpan {
+    public static final int DISCARD = -1;
+
+    // Scales the channels of packed colors, matching Float3.fromRGB(rgb).scale(scale).getColor(). The renderer
+    // sets its row kernel here, so shaders get the vectorized loop without depending on the renderer.
+    public interface ColorScaler {
+        void scaleColors(int[] colors, int count, float scale);
+    }
+    public ColorScaler colorScaler = (colors, count, scale) -> scaleColors(colors, 0, count, scale);
+
+    // shared by every span of a frame; set by setFrame from the frame's snapshot
+    public Float3 dirToSun = new Float3();
+    public float envLight;
+    public double time;
+
+    // shared by every pixel of the span
+    public int y;
+    public float screenV;
+    public Material mat;
+    public Texture tex;
+    // reused for every span; set from the triangle's texture coordinates by begin
+    public final Float2[] triUVs = {new Float2(), new Float2(), new Float2()};
+    public Float3[] worldTri;
+    public Float3 worldNormal;
+    public int object;
+    public int triangle;
+
+    public int count;
+    public int[] x;
+    public int[] index;
+    public float[] screenU;
+    public float[] weightA;
+    public float[] weightB;
+    public float[] weightC;
+    public float[] depth;
+    public float[] texU;
+    public float[] texV;
+    public int[] mipLevel;
+    public float[] worldX;
+    public float[] worldY;
+    public float[] worldZ;
+    public int[] colors;
+
+    private final FragmentData fragment = new FragmentData();
+
+    public ShadeSpan() {
+        this(64);
+    }
+    public ShadeSpan(int capacity) {
+        allocate(capacity);
+    }
+
+    public void setFrame(Float3 dirToSun, float envLight, double time) {
+        this.dirToSun = dirToSun;
+        this.envLight = envLight;
+        this.time = time;
+        fragment.dirToSun = dirToSun;
+        fragment.envLight = envLight;
+        fragment.time = time;
+    }
+
+    public void begin(int y, float screenV, Material mat, float u0, float v0, float u1, float v1, float u2, float v2,
+                      Float3[] worldTri, Float3 worldNormal, int oi, int ti) {
+        this.y = y;
+        this.screenV = screenV;
+        this.mat = mat;
+        this.tex = (mat.tex == null) ? Scene.errorMat.tex : mat.tex;
+        triUVs[0].set(u0, v0);
+        triUVs[1].set(u1, v1);
+        triUVs[2].set(u2, v2);
+        this.worldTri = worldTri;
+        this.worldNormal = worldNormal;
+        this.object = oi;
+        this.triangle = ti;
+        this.count = 0;
+    }
+
+    // Interpolates the texture coordinate and world position exactly as FragmentData.set does.
+    public int add(int x, int index, float screenU, float wA, float wB, float wC, float depth) {
+        if (count == this.x.length) {
+            allocate(count * 2);
+        }
+        int i = count++;
+        this.x[i] = x;
+        this.index[i] = index;
+        this.screenU[i] = screenU;
+        weightA[i] = wA;
+        weightB[i] = wB;
+        weightC[i] = wC;
+        this.depth[i] = depth;
+        texU[i] = ((triUVs[0].x * wA) + (triUVs[1].x * wB) + (triUVs[2].x * wC)) * mat.scale.x;
+        texV[i] = ((triUVs[0].y * wA) + (triUVs[1].y * wB) + (triUVs[2].y * wC)) * mat.scale.y;
+        mipLevel[i] = 0;
+        worldX[i] = (worldTri[0].x * wA) + (worldTri[1].x * wB) + (worldTri[2].x * wC);
+        worldY[i] = (worldTri[0].y * wA) + (worldTri[1].y * wB) + (worldTri[2].y * wC);
+        worldZ[i] = (worldTri[0].z * wA) + (worldTri[1].z * wB) + (worldTri[2].z * wC);
+        return i;
+    }
+
+    public void scaleColors(float scale) {
+        colorScaler.scaleColors(colors, count, scale);
+    }
+    public static void scaleColors(int[] colors, int from, int count, float scale) {
+        for (int i = from; i < count; i++) {
+            int rgb = colors[i];
+            int r = (int) (((((rgb >> 16) & 0xff) / 255f) * scale) * 255);
+            int g = (int) (((((rgb >> 8) & 0xff) / 255f) * scale) * 255);
+            int b = (int) ((((rgb & 0xff) / 255f) * scale) * 255);
+            colors[i] = (r << 16) | (g << 8) | b;
+        }
+    }
+
+    // Per-pixel view of the span for shaders that only implement fragment(); the instance is reused.
+    public FragmentData toFragment(int i) {
+        fragment.set(screenU[i], screenV, weightA[i], weightB[i], weightC[i],
+                mat, triUVs, worldTri, worldNormal, depth[i], object, triangle);
+        fragment.mipLevel = mipLevel[i];
+        return fragment;
+    }
+
+    private void allocate(int capacity) {
+        x = (x == null) ? new int[capacity] : Arrays.copyOf(x, capacity);
+        index = (index == null) ? new int[capacity] : Arrays.copyOf(index, capacity);
+        screenU = grow(screenU, capacity);
+        weightA = grow(weightA, capacity);
+        weightB = grow(weightB, capacity);
+        weightC = grow(weightC, capacity);
+        depth = grow(depth, capacity);
+        texU = grow(texU, capacity);
+        texV = grow(texV, capacity);
+        mipLevel = (mipLevel == null) ? new int[capacity] : Arrays.copyOf(mipLevel, capacity);
+        worldX = grow(worldX, capacity);
+        worldY = grow(worldY, capacity);
+        worldZ = grow(worldZ, capacity);
+        colors = (colors == null) ? new int[capacity] : Arrays.copyOf(colors, capacity);
+    }
+    private static float[] grow(float[] array, int capacity) {
+        return (array == null) ? new float[capacity] : Arrays.copyOf(array, capacity);
+    }
+}
@@ -2,15 +2,34 @@ package game_engine.material.shader;
 
 import game_engine.math.Float3;
 import game_engine.math.Maths;
-import game_engine.scene.Scene;
 
 public abstract class Shader {
     protected static final Float3 discard = new Float3(-1f, 0f, 0f);
 
     public abstract Float3 fragment(FragmentData f);
 
-    protected static float calculateLightIntensity(Float3 normal) {
-        float intensity = (normal.dotProduct(Scene.dirToSun) + 1f) * .5f;
-        return Maths.lerp(intensity, 1f, Scene.envLight);
+    // Shades a whole span into span.colors. The default runs fragment() per pixel; the built-in shaders
+    // override it with straight loops over the span arrays.
+    public void shadeSpan(ShadeSpan span) {
+        for (int i = 0; i < span.count; i++) {
+            Float3 color = fragment(span.toFragment(i));
+            span.colors[i] = (color.x < 0f) ? ShadeSpan.DISCARD : color.getColor();
+        }
+    }
+
+    // Deferred shading only runs the nearest fragment, so it may only defer shaders that never return discard.
+    // Any shader could, so this stays true unless a shader overrides it.
+    public boolean canDiscard() {
+        return true;
+    }
+
+    // same packing as Float3.getColor
+    protected static int packColor(float r, float g, float b) {
+        return (((int) (r * 255)) << 16) | (((int) (g * 255)) << 8) | ((int) (b * 255));
+    }
+
+    protected static float calculateLightIntensity(Float3 normal, Float3 dirToSun, float envLight) {
+        float intensity = (normal.dotProduct(dirToSun) + 1f) * .5f;
+        return Maths.lerp(intensity, 1f, envLight);
     }
 }
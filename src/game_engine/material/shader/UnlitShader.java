@@ -1,10 +1,24 @@
 package game_engine.material.shader;
 
+import game_engine.material.Texture;
 import game_engine.math.Float3;
 
 public class UnlitShader extends Shader {
     @Override
     public Float3 fragment(FragmentData f) {
-        return f.tex.sample(f.texUV);
+        return Float3.fromRGB(f.tex.sampleRGB(f.texUV.x, f.texUV.y, f.mipLevel));
+    }
+
+    @Override
+    public boolean canDiscard() {
+        return false;
+    }
+
+    @Override
+    public void shadeSpan(ShadeSpan span) {
+        Texture tex = span.tex;
+        for (int i = 0; i < span.count; i++) {
+            span.colors[i] = tex.sampleRGB(span.texU[i], span.texV[i], span.mipLevel[i]);
+        }
     }
 }
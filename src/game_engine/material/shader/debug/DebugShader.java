@@ -1,17 +1,47 @@
 package game_engine.material.shader.debug;
 
 import game_engine.material.shader.FragmentData;
+import game_engine.material.shader.ShadeSpan;
 import game_engine.material.shader.Shader;
 import game_engine.math.Float3;
-import game_engine.script.Script;
 
 public class DebugShader extends Shader {
     @Override
     public Float3 fragment(FragmentData f) {
-        if (Math.abs(((f.worldPos.x * .3f) + f.worldPos.y + (f.worldPos.z * .1f) - (Script.time * .6f)) % 1f) > .7f) return discard;
+        if (stripe(f.worldPos.x, f.worldPos.y, f.worldPos.z, phase(f.time))) return discard;
         double l = f.weights.to2D().length();
         Float3 color = f.screenUV.to3D(1f);
         if ((l < .35d) || (l > .65d)) color = color.scale(.5f);
         return color.scale(Math.min(1f, 4f / f.depth));
     }
+
+    @Override
+    public void shadeSpan(ShadeSpan span) {
+        float phase = phase(span.time);
+        for (int i = 0; i < span.count; i++) {
+            if (stripe(span.worldX[i], span.worldY[i], span.worldZ[i], phase)) {
+                span.colors[i] = ShadeSpan.DISCARD;
+                continue;
+            }
+            double l = Math.sqrt((span.weightA[i] * span.weightA[i]) + (span.weightB[i] * span.weightB[i]));
+            float r = span.screenU[i];
+            float g = span.screenV;
+            float b = 1f;
+            if ((l < .35d) || (l > .65d)) {
+                r *= .5f;
+                g *= .5f;
+                b *= .5f;
+            }
+            double fade = Math.min(1f, 4f / span.depth[i]);
+            span.colors[i] = packColor((float) (r * fade), (float) (g * fade), (float) (b * fade));
+        }
+    }
+
+    // the discarded stripes scroll with time; both paths test pixels through these, in float
+    private static float phase(double time) {
+        return (float) (time * .6f);
+    }
+    private static boolean stripe(float x, float y, float z, float phase) {
+        return Math.abs(((x * .3f) + y + (z * .1f) - phase) % 1f) > .7f;
+    }
 }
@@ -1,6 +1,7 @@
 package game_engine.material.shader.debug;
 
 import game_engine.material.shader.FragmentData;
+import game_engine.material.shader.ShadeSpan;
 import game_engine.material.shader.Shader;
 import game_engine.math.Float3;
 
@@ -13,4 +14,17 @@ public class DepthShader extends Shader {
         }
         return new Float3(d, d, d);
     }
+
+    @Override
+    public boolean canDiscard() {
+        return false;
+    }
+
+    @Override
+    public void shadeSpan(ShadeSpan span) {
+        for (int i = 0; i < span.count; i++) {
+            float d = span.depth[i] / 50f;
+            span.colors[i] = (d > 1f) ? packColor(.75f, 1f, 1f) : packColor(d, d, d);
+        }
+    }
 }
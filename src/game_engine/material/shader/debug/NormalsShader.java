@@ -1,12 +1,27 @@
 package game_engine.material.shader.debug;
 
 import game_engine.material.shader.FragmentData;
+import game_engine.material.shader.ShadeSpan;
 import game_engine.material.shader.Shader;
 import game_engine.math.Float3;
 
+import java.util.Arrays;
+
 public class NormalsShader extends Shader {
     @Override
     public Float3 fragment(FragmentData f) {
         return f.worldNormal.add(new Float3(1f, 1f, 1f)).scale(.5f);
     }
+
+    @Override
+    public boolean canDiscard() {
+        return false;
+    }
+
+    @Override
+    public void shadeSpan(ShadeSpan span) {
+        Float3 n = span.worldNormal;
+        int color = packColor((n.x + 1f) * .5f, (n.y + 1f) * .5f, (n.z + 1f) * .5f);
+        Arrays.fill(span.colors, 0, span.count, color);
+    }
 }
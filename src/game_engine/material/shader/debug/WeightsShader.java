@@ -1,6 +1,7 @@
 package game_engine.material.shader.debug;
 
 import game_engine.material.shader.FragmentData;
+import game_engine.material.shader.ShadeSpan;
 import game_engine.material.shader.Shader;
 import game_engine.math.Float3;
 
@@ -9,4 +10,16 @@ public class WeightsShader extends Shader {
     public Float3 fragment(FragmentData f) {
         return f.weights;
     }
+
+    @Override
+    public boolean canDiscard() {
+        return false;
+    }
+
+    @Override
+    public void shadeSpan(ShadeSpan span) {
+        for (int i = 0; i < span.count; i++) {
+            span.colors[i] = packColor(span.weightA[i], span.weightB[i], span.weightC[i]);
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package game_engine.material.shader.debug;
 
 import game_engine.material.shader.FragmentData;
+import game_engine.material.shader.ShadeSpan;
 import game_engine.material.shader.Shader;
 import game_engine.math.Float3;
 import game_engine.scene.Scene;
@@ -9,16 +10,35 @@ import game_engine.script.Script;
 import java.util.Random;
 
 public class WireframeShader extends Shader {
-    private static final Random random = new Random();
+    private static final ThreadLocal<Random> random = ThreadLocal.withInitial(Random::new);
 
     @Override
     public Float3 fragment(FragmentData f) {
         float min = Math.min(Math.min(f.weights.x, f.weights.y), f.weights.z);
         if (min < .025f) {
-            random.setSeed(f.object * 601281556L);
-            float hue = random.nextFloat(360f);
+            Random rng = random.get();
+            rng.setSeed(f.object * 601281556L);
+            float hue = rng.nextFloat(360f);
             return Float3.fromHSV(hue, 50f, 100f);
         }
         return discard;
     }
+
+    @Override
+    public void shadeSpan(ShadeSpan span) {
+        int color = ShadeSpan.DISCARD;
+        for (int i = 0; i < span.count; i++) {
+            float min = Math.min(Math.min(span.weightA[i], span.weightB[i]), span.weightC[i]);
+            if (min < .025f) {
+                if (color == ShadeSpan.DISCARD) {
+                    Random rng = random.get();
+                    rng.setSeed(span.object * 601281556L);
+                    color = Float3.fromHSV(rng.nextFloat(360f), 50f, 100f).getColor();
+                }
+                span.colors[i] = color;
+            } else {
+                span.colors[i] = ShadeSpan.DISCARD;
+            }
+        }
+    }
 }
@@ -62,7 +62,7 @@ public class Float2 {
         return (float) Math.atan2(x, y);
     }
     public float angleBetween(Float2 f2) {
-        return (float) ((this.angle() - f2.angle()) % Math.TAU);
+        return (float) ((this.angle() - f2.angle()) % (2 * Math.PI));
     }
     public float dotProduct(Float2 f2) {
         return (x * f2.x) + (y * f2.y);
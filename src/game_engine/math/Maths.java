@@ -114,6 +114,32 @@ public abstract class Maths {
     public static Float3 transform(Float3 f3, Transform transform) {
         return rotate(f3.multiply(transform.scale), transform).add(transform.pos);
     }
+    // transform(Float3, Transform) for a point read straight from a model's streams, with the same rounding
+    public static Float3 transform(float x, float y, float z, Transform transform) {
+        Float3[] vectors = transform.basisVectors;
+        Float3 iHat = vectors[0];
+        Float3 jHat = vectors[1];
+        Float3 kHat = vectors[2];
+        Float3 scale = transform.scale;
+        Float3 pos = transform.pos;
+        float sx = x * scale.x;
+        float sy = y * scale.y;
+        float sz = z * scale.z;
+        return new Float3(
+                (iHat.x * sx) + (jHat.x * sy) + (kHat.x * sz) + pos.x,
+                (iHat.y * sx) + (jHat.y * sy) + (kHat.y * sz) + pos.y,
+                (iHat.z * sx) + (jHat.z * sy) + (kHat.z * sz) + pos.z);
+    }
+    public static Float3 rotate(float x, float y, float z, Transform transform) {
+        Float3[] vectors = transform.basisVectors;
+        Float3 iHat = vectors[0];
+        Float3 jHat = vectors[1];
+        Float3 kHat = vectors[2];
+        return new Float3(
+                (iHat.x * x) + (jHat.x * y) + (kHat.x * z),
+                (iHat.y * x) + (jHat.y * y) + (kHat.y * z),
+                (iHat.z * x) + (jHat.z * y) + (kHat.z * z));
+    }
     public static Float3[] transformTri(Float3[] tri, Transform transform) {
         Float3 A = transform(tri[0], transform);
         Float3 B = transform(tri[1], transform);
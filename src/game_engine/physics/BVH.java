@@ -0,0 +1,176 @@
+package game_engine.physics;
+
+import java.util.Arrays;
+
+// Flat bounding volume hierarchy over axis-aligned primitive boxes. Nodes are laid out depth first, so a
+// child always has a higher index than its parent; internal nodes store their left child, the right one follows.
+abstract class BVH {
+    private static final int LEAF_SIZE = 4;
+
+    protected float[] primBounds = new float[0];
+    protected int[] order = new int[0];
+    protected float[] nodeBounds = new float[0];
+    protected int[] nodeFirst = new int[0];
+    protected int[] nodeCount = new int[0];
+    protected int[] nodeParent = new int[0];
+    protected int nodes;
+
+    private float[] centroids;
+
+    // primBounds must hold minX, minY, minZ, maxX, maxY, maxZ for each primitive before this is called.
+    protected void build(int primCount) {
+        order = new int[primCount];
+        centroids = new float[primCount * 3];
+        for (int i = 0; i < primCount; i++) {
+            order[i] = i;
+            for (int axis = 0; axis < 3; axis++) {
+                centroids[(i * 3) + axis] = (primBounds[(i * 6) + axis] + primBounds[(i * 6) + 3 + axis]) * .5f;
+            }
+        }
+        int maxNodes = Math.max(1, (2 * primCount) - 1);
+        nodeBounds = new float[maxNodes * 6];
+        nodeFirst = new int[maxNodes];
+        nodeCount = new int[maxNodes];
+        nodeParent = new int[maxNodes];
+        nodes = 1;
+        nodeParent[0] = -1;
+        split(0, 0, primCount);
+        centroids = null;
+    }
+    private void split(int node, int first, int count) {
+        refitLeafBounds(node, first, count);
+        if (count <= LEAF_SIZE) {
+            nodeFirst[node] = first;
+            nodeCount[node] = count;
+            return;
+        }
+
+        float[] min = {Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE};
+        float[] max = {-Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE};
+        for (int i = first; i < first + count; i++) {
+            for (int axis = 0; axis < 3; axis++) {
+                float c = centroids[(order[i] * 3) + axis];
+                min[axis] = Math.min(min[axis], c);
+                max[axis] = Math.max(max[axis], c);
+            }
+        }
+        int axis = 0;
+        if (max[1] - min[1] > max[axis] - min[axis]) axis = 1;
+        if (max[2] - min[2] > max[axis] - min[axis]) axis = 2;
+        partitionMedian(first, first + count - 1, first + (count / 2), axis);
+
+        int left = nodes;
+        nodes += 2;
+        nodeFirst[node] = left;
+        nodeCount[node] = 0;
+        nodeParent[left] = node;
+        nodeParent[left + 1] = node;
+        split(left, first, count / 2);
+        split(left + 1, first + (count / 2), count - (count / 2));
+    }
+    // Quickselect on centroids, leaving the median primitive at index k.
+    private void partitionMedian(int lo, int hi, int k, int axis) {
+        while (lo < hi) {
+            float pivot = centroids[(order[(lo + hi) >>> 1] * 3) + axis];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (centroids[(order[i] * 3) + axis] < pivot) i++;
+                while (centroids[(order[j] * 3) + axis] > pivot) j--;
+                if (i <= j) {
+                    int t = order[i];
+                    order[i] = order[j];
+                    order[j] = t;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) hi = j;
+            else if (k >= i) lo = i;
+            else return;
+        }
+    }
+
+    protected void refitLeafBounds(int node, int first, int count) {
+        int n = node * 6;
+        Arrays.fill(nodeBounds, n, n + 3, Float.MAX_VALUE);
+        Arrays.fill(nodeBounds, n + 3, n + 6, -Float.MAX_VALUE);
+        for (int i = first; i < first + count; i++) {
+            int p = order[i] * 6;
+            for (int axis = 0; axis < 3; axis++) {
+                nodeBounds[n + axis] = Math.min(nodeBounds[n + axis], primBounds[p + axis]);
+                nodeBounds[n + 3 + axis] = Math.max(nodeBounds[n + 3 + axis], primBounds[p + 3 + axis]);
+            }
+        }
+    }
+    protected void refitInternalBounds(int node) {
+        int n = node * 6;
+        int l = nodeFirst[node] * 6;
+        int r = l + 6;
+        for (int axis = 0; axis < 3; axis++) {
+            nodeBounds[n + axis] = Math.min(nodeBounds[l + axis], nodeBounds[r + axis]);
+            nodeBounds[n + 3 + axis] = Math.max(nodeBounds[l + 3 + axis], nodeBounds[r + 3 + axis]);
+        }
+    }
+
+    // Visits every leaf primitive whose node box the ray enters before the current closest hit distance.
+    protected void traverse(float ox, float oy, float oz, float dx, float dy, float dz, RayHit hit, int[] stack) {
+        if (nodes == 0 || order.length == 0) return;
+        float invDx = 1f / dx;
+        float invDy = 1f / dy;
+        float invDz = 1f / dz;
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (enterDistance(node, ox, oy, oz, invDx, invDy, invDz) > hit.distance) continue;
+
+            int count = nodeCount[node];
+            if (count > 0) {
+                int first = nodeFirst[node];
+                for (int i = first; i < first + count; i++) {
+                    intersectPrimitive(order[i], ox, oy, oz, dx, dy, dz, hit);
+                }
+            } else {
+                int left = nodeFirst[node];
+                float leftDistance = enterDistance(left, ox, oy, oz, invDx, invDy, invDz);
+                float rightDistance = enterDistance(left + 1, ox, oy, oz, invDx, invDy, invDz);
+                if (leftDistance < rightDistance) {
+                    if (rightDistance <= hit.distance) stack[top++] = left + 1;
+                    if (leftDistance <= hit.distance) stack[top++] = left;
+                } else {
+                    if (leftDistance <= hit.distance) stack[top++] = left;
+                    if (rightDistance <= hit.distance) stack[top++] = left + 1;
+                }
+            }
+        }
+    }
+    // A NaN slab distance is 0 * inf: the ray has no motion on that axis and starts on one of the box's planes,
+    // so it stays inside that slab and the axis doesn't limit the interval.
+    private float enterDistance(int node, float ox, float oy, float oz, float invDx, float invDy, float invDz) {
+        int n = node * 6;
+        float tMin = Float.NEGATIVE_INFINITY;
+        float tMax = Float.POSITIVE_INFINITY;
+        float t1 = (nodeBounds[n] - ox) * invDx;
+        float t2 = (nodeBounds[n + 3] - ox) * invDx;
+        if (!Float.isNaN(t1) && !Float.isNaN(t2)) {
+            tMin = Math.min(t1, t2);
+            tMax = Math.max(t1, t2);
+        }
+        t1 = (nodeBounds[n + 1] - oy) * invDy;
+        t2 = (nodeBounds[n + 4] - oy) * invDy;
+        if (!Float.isNaN(t1) && !Float.isNaN(t2)) {
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+        }
+        t1 = (nodeBounds[n + 2] - oz) * invDz;
+        t2 = (nodeBounds[n + 5] - oz) * invDz;
+        if (!Float.isNaN(t1) && !Float.isNaN(t2)) {
+            tMin = Math.max(tMin, Math.min(t1, t2));
+            tMax = Math.min(tMax, Math.max(t1, t2));
+        }
+        return (tMax >= Math.max(tMin, 0f)) ? Math.max(tMin, 0f) : Float.POSITIVE_INFINITY;
+    }
+
+    protected abstract void intersectPrimitive(int prim, float ox, float oy, float oz, float dx, float dy, float dz, RayHit hit);
+}
@@ -0,0 +1,31 @@
+package game_engine.physics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("game_engine.CollisionQuery")
+@Label("Collision Query")
+@Description("One point query against the scene's colliders")
+@Category({"Game Engine", "Physics"})
+@Enabled(false)
+class CollisionQueryEvent extends Event {
+    @Label("Query")
+    String query;
+    @Label("Objects Tested")
+    int objectsTested;
+    @Label("Hit")
+    boolean hit;
+
+    void end(String query, int objectsTested, boolean hit) {
+        if (shouldCommit()) {
+            this.query = query;
+            this.objectsTested = objectsTested;
+            this.hit = hit;
+            commit();
+        }
+    }
+}
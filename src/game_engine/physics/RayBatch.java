@@ -0,0 +1,108 @@
+package game_engine.physics;
+
+import game_engine.math.Float3;
+
+import java.util.stream.IntStream;
+
+// Reusable structure-of-arrays batch of rays and their closest hits. Rays are traced in parallel chunks of
+// consecutive rays, so submitting neighbouring rays next to each other keeps each chunk's traversal coherent.
+public class RayBatch {
+    private static final int CHUNK_SIZE = 32;
+    private static final ThreadLocal<RayHit> scratch = ThreadLocal.withInitial(RayHit::new);
+
+    public final int capacity;
+    private int count;
+
+    public final float[] origins;
+    public final float[] directions;
+    public final float[] maxDistances;
+
+    public final boolean[] hits;
+    public final float[] distances;
+    public final int[] objects;
+    public final int[] triangles;
+    public final float[] barycentrics;
+    public final float[] positions;
+
+    public RayBatch(int capacity) {
+        this.capacity = capacity;
+        this.origins = new float[capacity * 3];
+        this.directions = new float[capacity * 3];
+        this.maxDistances = new float[capacity];
+        this.hits = new boolean[capacity];
+        this.distances = new float[capacity];
+        this.objects = new int[capacity];
+        this.triangles = new int[capacity];
+        this.barycentrics = new float[capacity * 2];
+        this.positions = new float[capacity * 3];
+    }
+
+    public int count() {
+        return count;
+    }
+    public void clear() {
+        count = 0;
+    }
+    public int add(Float3 origin, Float3 direction, float maxDistance) {
+        return add(origin.x, origin.y, origin.z, direction.x, direction.y, direction.z, maxDistance);
+    }
+    public int add(float ox, float oy, float oz, float dx, float dy, float dz, float maxDistance) {
+        if (count == capacity) {
+            throw new IllegalStateException("ray batch is full (" + capacity + " rays)");
+        }
+        int i = count++;
+        origins[i * 3] = ox;
+        origins[(i * 3) + 1] = oy;
+        origins[(i * 3) + 2] = oz;
+        directions[i * 3] = dx;
+        directions[(i * 3) + 1] = dy;
+        directions[(i * 3) + 2] = dz;
+        maxDistances[i] = maxDistance;
+        return i;
+    }
+
+    public void getPosition(int i, Float3 out) {
+        out.set(positions[i * 3], positions[(i * 3) + 1], positions[(i * 3) + 2]);
+    }
+
+    public void trace() {
+        RaycastBatchEvent event = new RaycastBatchEvent();
+        event.begin();
+        SceneBVH bvh = SceneBVH.get();
+        int chunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        if (chunks <= 1) {
+            traceChunk(bvh, 0);
+        } else {
+            IntStream.range(0, chunks).parallel().forEach(chunk -> traceChunk(bvh, chunk));
+        }
+        if (event.shouldCommit()) {
+            event.rays = count;
+            for (int i = 0; i < count; i++) {
+                if (hits[i]) event.hits++;
+            }
+            event.chunks = chunks;
+            event.commit();
+        }
+    }
+    private void traceChunk(SceneBVH bvh, int chunk) {
+        RayHit hit = scratch.get();
+        int end = Math.min(count, (chunk + 1) * CHUNK_SIZE);
+        for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+            int v = i * 3;
+            float ox = origins[v], oy = origins[v + 1], oz = origins[v + 2];
+            float dx = directions[v], dy = directions[v + 1], dz = directions[v + 2];
+            boolean hitSomething = bvh.intersect(ox, oy, oz, dx, dy, dz, maxDistances[i], hit);
+
+            float t = hitSomething ? hit.distance : maxDistances[i];
+            hits[i] = hitSomething;
+            distances[i] = t;
+            objects[i] = hit.object;
+            triangles[i] = hit.triangle;
+            barycentrics[i * 2] = hit.u;
+            barycentrics[(i * 2) + 1] = hit.v;
+            positions[v] = ox + (dx * t);
+            positions[v + 1] = oy + (dy * t);
+            positions[v + 2] = oz + (dz * t);
+        }
+    }
+}
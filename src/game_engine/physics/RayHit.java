@@ -0,0 +1,30 @@
+package game_engine.physics;
+
+// Closest-hit state for one ray, reused between queries. distance is measured in multiples of the ray direction.
+public class RayHit {
+    private static final int STACK_SIZE = 64;
+
+    public float distance;
+    public int object;
+    public int triangle;
+    public float u;
+    public float v;
+
+    final int[] sceneStack = new int[STACK_SIZE];
+    final int[] meshStack = new int[STACK_SIZE];
+
+    public RayHit() {
+        reset(Float.POSITIVE_INFINITY);
+    }
+
+    public void reset(float maxDistance) {
+        distance = maxDistance;
+        object = -1;
+        triangle = -1;
+        u = 0f;
+        v = 0f;
+    }
+    public boolean hit() {
+        return object >= 0;
+    }
+}
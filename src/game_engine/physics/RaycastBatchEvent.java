@@ -0,0 +1,22 @@
+package game_engine.physics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("game_engine.RaycastBatch")
+@Label("Raycast Batch")
+@Description("One RayBatch traced against the scene BVH")
+@Category({"Game Engine", "Physics"})
+@Enabled(false)
+class RaycastBatchEvent extends Event {
+    @Label("Rays")
+    int rays;
+    @Label("Hits")
+    int hits;
+    @Label("Chunks")
+    int chunks;
+}
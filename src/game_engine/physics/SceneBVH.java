@@ -0,0 +1,151 @@
+package game_engine.physics;
+
+import game_engine.math.Float3;
+import game_engine.scene.GameObject;
+import game_engine.scene.Scene;
+import game_engine.scene.Transform;
+
+// Hierarchy over the world bounds of every scene object. It is rebuilt when objects or models are added or
+// removed, and otherwise refit on every get(): each object's position, scale, basis and model key are compared
+// with the copies its bounds were stored from, and only leaves whose objects moved, and their ancestors, get new
+// bounds. Transforms are plain public fields, so this flat compare is the only way to see every move; it keeps
+// the bounds in step with the live transforms intersectPrimitive tests against.
+public class SceneBVH extends BVH {
+    private static SceneBVH instance;
+
+    private int builtVersion = -1;
+    private float[] placements = new float[0];
+    private Float3[][] bases = new Float3[0][];
+    private String[] modelKeys = new String[0];
+    private TriangleBVH[] objectMeshes = new TriangleBVH[0];
+    private int[] leafOfObject = new int[0];
+    private boolean[] dirty = new boolean[0];
+
+    public static synchronized SceneBVH get() {
+        if (instance == null) {
+            instance = new SceneBVH();
+        }
+        instance.update();
+        return instance;
+    }
+
+    public boolean intersect(Float3 origin, Float3 direction, float maxDistance, RayHit hit) {
+        return intersect(origin.x, origin.y, origin.z, direction.x, direction.y, direction.z, maxDistance, hit);
+    }
+    public boolean intersect(float ox, float oy, float oz, float dx, float dy, float dz, float maxDistance, RayHit hit) {
+        hit.reset(maxDistance);
+        traverse(ox, oy, oz, dx, dy, dz, hit, hit.sceneStack);
+        return hit.hit();
+    }
+
+    private void update() {
+        if (builtVersion != Scene.structureVersion()) {
+            rebuild();
+        } else {
+            refit();
+        }
+    }
+    private void rebuild() {
+        int count = Scene.objectCount();
+        primBounds = new float[count * 6];
+        placements = new float[count * 6];
+        bases = new Float3[count][];
+        modelKeys = new String[count];
+        objectMeshes = new TriangleBVH[count];
+        for (int o = 0; o < count; o++) {
+            storeObject(o);
+        }
+        build(count);
+
+        leafOfObject = new int[count];
+        for (int node = 0; node < nodes; node++) {
+            for (int i = nodeFirst[node]; i < nodeFirst[node] + nodeCount[node]; i++) {
+                leafOfObject[order[i]] = node;
+            }
+        }
+        dirty = new boolean[nodes];
+        builtVersion = Scene.structureVersion();
+    }
+    private void refit() {
+        boolean changed = false;
+        for (int o = 0; o < modelKeys.length; o++) {
+            if (moved(o, Scene.getObject(o))) {
+                storeObject(o);
+                dirty[leafOfObject[o]] = true;
+                changed = true;
+            }
+        }
+        if (!changed) return;
+
+        for (int node = nodes - 1; node >= 0; node--) {
+            if (!dirty[node]) continue;
+            dirty[node] = false;
+            if (nodeCount[node] > 0) {
+                refitLeafBounds(node, nodeFirst[node], nodeCount[node]);
+            } else {
+                refitInternalBounds(node);
+            }
+            if (nodeParent[node] >= 0) {
+                dirty[nodeParent[node]] = true;
+            }
+        }
+    }
+    private boolean moved(int o, GameObject object) {
+        Transform transform = object.transform;
+        Float3 pos = transform.pos;
+        Float3 scale = transform.scale;
+        int i = o * 6;
+        return object.modelKey != modelKeys[o] || transform.basisVectors != bases[o]
+                || pos.x != placements[i] || pos.y != placements[i + 1] || pos.z != placements[i + 2]
+                || scale.x != placements[i + 3] || scale.y != placements[i + 4] || scale.z != placements[i + 5];
+    }
+    private void storeObject(int o) {
+        GameObject object = Scene.getObject(o);
+        Transform transform = object.transform;
+        int i = o * 6;
+        placements[i] = transform.pos.x;
+        placements[i + 1] = transform.pos.y;
+        placements[i + 2] = transform.pos.z;
+        placements[i + 3] = transform.scale.x;
+        placements[i + 4] = transform.scale.y;
+        placements[i + 5] = transform.scale.z;
+        bases[o] = transform.basisVectors;
+        modelKeys[o] = object.modelKey;
+        objectMeshes[o] = TriangleBVH.forModel(object.getModel());
+        Float3 min = object.getWorldBoundsMin();
+        Float3 max = object.getWorldBoundsMax();
+        primBounds[i] = min.x;
+        primBounds[i + 1] = min.y;
+        primBounds[i + 2] = min.z;
+        primBounds[i + 3] = max.x;
+        primBounds[i + 4] = max.y;
+        primBounds[i + 5] = max.z;
+    }
+
+    // The ray is moved into the object's model space without normalizing, so hit distances stay comparable.
+    @Override
+    protected void intersectPrimitive(int prim, float ox, float oy, float oz, float dx, float dy, float dz, RayHit hit) {
+        GameObject object = Scene.getObject(prim);
+        if (!object.active || !basic_collision.isCollider(object)) return;
+
+        Transform transform = object.transform;
+        Float3 scale = transform.scale;
+        if (scale.x == 0f || scale.y == 0f || scale.z == 0f) return;
+        Float3[] inv = transform.invBasisVectors;
+        float rx = ox - transform.pos.x;
+        float ry = oy - transform.pos.y;
+        float rz = oz - transform.pos.z;
+        float localOX = ((inv[0].x * rx) + (inv[1].x * ry) + (inv[2].x * rz)) / scale.x;
+        float localOY = ((inv[0].y * rx) + (inv[1].y * ry) + (inv[2].y * rz)) / scale.y;
+        float localOZ = ((inv[0].z * rx) + (inv[1].z * ry) + (inv[2].z * rz)) / scale.z;
+        float localDX = ((inv[0].x * dx) + (inv[1].x * dy) + (inv[2].x * dz)) / scale.x;
+        float localDY = ((inv[0].y * dx) + (inv[1].y * dy) + (inv[2].y * dz)) / scale.y;
+        float localDZ = ((inv[0].z * dx) + (inv[1].z * dy) + (inv[2].z * dz)) / scale.z;
+
+        float closest = hit.distance;
+        objectMeshes[prim].intersect(localOX, localOY, localOZ, localDX, localDY, localDZ, hit);
+        if (hit.distance < closest) {
+            hit.object = prim;
+        }
+    }
+}
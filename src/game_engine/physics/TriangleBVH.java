@@ -0,0 +1,80 @@
+package game_engine.physics;
+
+import game_engine.scene.Model;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+// Model-space hierarchy over a model's triangles, shared by every object using the model.
+public class TriangleBVH extends BVH {
+    private static final float EPSILON = 1e-7f;
+    private static final Map<Model, TriangleBVH> cache = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final float[] vertexes;
+
+    public static TriangleBVH forModel(Model model) {
+        return cache.computeIfAbsent(model, TriangleBVH::new);
+    }
+
+    private TriangleBVH(Model model) {
+        int count = model.triangleCount();
+        vertexes = new float[count * 9];
+        primBounds = new float[count * 6];
+        for (int t = 0; t < count; t++) {
+            for (int corner = 0; corner < 3; corner++) {
+                int v = model.getTriVertexIndex(t, corner);
+                int i = (t * 9) + (corner * 3);
+                vertexes[i] = model.getVertexX(v);
+                vertexes[i + 1] = model.getVertexY(v);
+                vertexes[i + 2] = model.getVertexZ(v);
+            }
+            for (int axis = 0; axis < 3; axis++) {
+                float a = vertexes[(t * 9) + axis];
+                float b = vertexes[(t * 9) + 3 + axis];
+                float c = vertexes[(t * 9) + 6 + axis];
+                primBounds[(t * 6) + axis] = Math.min(Math.min(a, b), c);
+                primBounds[(t * 6) + 3 + axis] = Math.max(Math.max(a, b), c);
+            }
+        }
+        build(count);
+    }
+
+    public void intersect(float ox, float oy, float oz, float dx, float dy, float dz, RayHit hit) {
+        traverse(ox, oy, oz, dx, dy, dz, hit, hit.meshStack);
+    }
+
+    // Two-sided Moller-Trumbore; u and v are the weights of the triangle's second and third vertex.
+    @Override
+    protected void intersectPrimitive(int prim, float ox, float oy, float oz, float dx, float dy, float dz, RayHit hit) {
+        int i = prim * 9;
+        float ax = vertexes[i], ay = vertexes[i + 1], az = vertexes[i + 2];
+        float e1x = vertexes[i + 3] - ax, e1y = vertexes[i + 4] - ay, e1z = vertexes[i + 5] - az;
+        float e2x = vertexes[i + 6] - ax, e2y = vertexes[i + 7] - ay, e2z = vertexes[i + 8] - az;
+
+        float px = (dy * e2z) - (dz * e2y);
+        float py = (dz * e2x) - (dx * e2z);
+        float pz = (dx * e2y) - (dy * e2x);
+        float det = (e1x * px) + (e1y * py) + (e1z * pz);
+        if (Math.abs(det) < EPSILON) return;
+        float invDet = 1f / det;
+
+        float sx = ox - ax, sy = oy - ay, sz = oz - az;
+        float u = ((sx * px) + (sy * py) + (sz * pz)) * invDet;
+        if (u < 0f || u > 1f) return;
+
+        float qx = (sy * e1z) - (sz * e1y);
+        float qy = (sz * e1x) - (sx * e1z);
+        float qz = (sx * e1y) - (sy * e1x);
+        float v = ((dx * qx) + (dy * qy) + (dz * qz)) * invDet;
+        if (v < 0f || u + v > 1f) return;
+
+        float t = ((e2x * qx) + (e2y * qy) + (e2z * qz)) * invDet;
+        if (t > EPSILON && t < hit.distance) {
+            hit.distance = t;
+            hit.triangle = prim;
+            hit.u = u;
+            hit.v = v;
+        }
+    }
+}
@@ -3,32 +3,30 @@ import game_engine.math.Float3;
 import game_engine.scene.Scene;
 import game_engine.scene.GameObject;
 import game_engine.math.Maths;
-import game_engine.scene.Transform;
 
 public class basic_collision {
 
+    public static boolean isCollider(GameObject obj) {
+        return obj.modelKey == "cube";
+    }
 
-    public static boolean collision(Float3 pos) {
-        GameObject[] objs = Scene.getObjects();
 
-        for (GameObject obj:objs){
+    public static boolean collision(Float3 pos) {
+        CollisionQueryEvent event = new CollisionQueryEvent();
+        event.begin();
+        for (int o = 0; o < Scene.objectCount(); o++){
+            GameObject obj = Scene.getObject(o);
 
-            if (obj.modelKey == "cube"){
+            if (isCollider(obj)){
                 Float3 deltapos = pos.sub(obj.transform.pos);
                 deltapos = deltapos.multiply(obj.transform.scale.inverse());
 
-                Transform temp_transform = new Transform(0,0,0,0,0,0,0,0,0);
-
-                temp_transform.rot = obj.transform.rot;
-                temp_transform.updateRotation();
-
-
-
-                deltapos = Maths.rotate(deltapos, temp_transform);
+                deltapos = Maths.rotate(deltapos, obj.transform);
                 //System.out.println(deltapos);
                 if (Math.abs(deltapos.x)<1){
                     if (Math.abs(deltapos.y)<1){
                         if (Math.abs(deltapos.z)<1){
+                            event.end("collision", o + 1, true);
                             return true;
                         }
                     }
@@ -38,6 +36,7 @@ public class basic_collision {
             //return false;
         }
 
+        event.end("collision", Scene.objectCount(), false);
         return false;
 
 
@@ -50,26 +49,21 @@ public class basic_collision {
     }
 
     public static GameObject collision_object(Float3 pos,double size) {
-        GameObject[] objs = Scene.getObjects();
-
-        for (GameObject obj:objs){
+        CollisionQueryEvent event = new CollisionQueryEvent();
+        event.begin();
+        for (int o = 0; o < Scene.objectCount(); o++){
+            GameObject obj = Scene.getObject(o);
 
-            if (obj.modelKey == "cube"){
+            if (isCollider(obj)){
                 Float3 deltapos = pos.sub(obj.transform.pos);
                 deltapos = deltapos.multiply(obj.transform.scale.inverse());
 
-                Transform temp_transform = new Transform(0,0,0,0,0,0,0,0,0);
-
-                temp_transform.rot = obj.transform.rot;
-                temp_transform.updateRotation();
-
-
-
-                deltapos = Maths.rotate(deltapos, temp_transform);
+                deltapos = Maths.rotate(deltapos, obj.transform);
                 //System.out.println(deltapos);
                 if (Math.abs(deltapos.x)<size){
                     if (Math.abs(deltapos.y)<size){
                         if (Math.abs(deltapos.z)<size){
+                            event.end("collision_object", o + 1, true);
                             return obj;
                         }
                     }
@@ -80,6 +74,7 @@ public class basic_collision {
         }
 
         //return false;
+        event.end("collision_object", Scene.objectCount(), false);
         return new GameObject("none");
 
 
@@ -37,13 +37,17 @@ public class collision {
         double min_dist_sq = Double.MAX_VALUE;
         Float2 final_uv = null;
 
-        // Iterate through all triangles
-        for (int i = 0; i < triangles; i++) {
-            Float3[] triangle_verts = model.getTriVertexes(i); // V0, V1, V2
-            Float2[] triangle_uvs = model.getTriUVs(i);       // UV0, UV1, UV2
+        // Line below is for testing the actual algorithm; the model's own UV0, UV1, UV2 are
+        // model.getU/getV(model.getTriUVIndex(i, corner))
+        Float2[] triangle_uvs = new Float2[]{new Float2(0f, 0f), new Float2(1,0f), new Float2(0,1f)};
 
-            // Line below is for testing the actual algorithm
-            triangle_uvs = new Float2[]{new Float2(0f, 0f), new Float2(1,0f), new Float2(0,1f)};
+        // Iterate through all triangles, reading the world space V0, V1, V2 by index into one reused array
+        Float3[] world = obj.getWorldVertexes();
+        Float3[] triangle_verts = new Float3[3];
+        for (int i = 0; i < triangles; i++) {
+            triangle_verts[0] = world[model.getTriVertexIndex(i, 0)];
+            triangle_verts[1] = world[model.getTriVertexIndex(i, 1)];
+            triangle_verts[2] = world[model.getTriVertexIndex(i, 2)];
 
             // Get the closest point on the triangle's surface (barycentric coords and distance)
             double[] bary_and_dist = closest_point_on_triangle(pos, triangle_verts);
@@ -1,17 +1,27 @@
 package game_engine.physics;
 
+import game_engine.math.Float2;
 import game_engine.math.Float3;
+import game_engine.scene.GameObject;
+import game_engine.scene.Scene;
 
 public class raycast {
     public static raycast_result raycast(Float3 origin, Float3 direction, double distance){
-        Float3 checkpoint = origin;
-        for (double i=0;i < distance;i+=0.1){
-             checkpoint = origin.add(direction.scale(i));
-            if (collision.collision(checkpoint)){
-                return new raycast_result(true, checkpoint, origin);
-            }
+        RayHit hit = new RayHit();
+        if (!SceneBVH.get().intersect(origin, direction, (float) distance, hit)) {
+            return new raycast_result(false, origin.add(direction.scale(distance)), direction, origin);
         }
-        return new raycast_result(false, checkpoint, origin);
-        //return new raycast_result(false);
+        return toResult(origin, direction, hit);
+    }
+
+    static raycast_result toResult(Float3 origin, Float3 direction, RayHit hit) {
+        GameObject object = Scene.getObject(hit.object);
+        Float2[] UVs = object.getTriUVs(hit.triangle);
+        float w = 1f - hit.u - hit.v;
+        Float2 uv = new Float2(
+                (UVs[0].x * w) + (UVs[1].x * hit.u) + (UVs[2].x * hit.v),
+                (UVs[0].y * w) + (UVs[1].y * hit.u) + (UVs[2].y * hit.v));
+        Float3 position = origin.add(direction.scale(hit.distance));
+        return new raycast_result(position, direction, origin, hit.distance, object, hit.object, hit.triangle, new Float2(hit.u, hit.v), uv);
     }
 }
@@ -1,6 +1,8 @@
 package game_engine.physics;
 
+import game_engine.math.Float2;
 import game_engine.math.Float3;
+import game_engine.scene.GameObject;
 
 public class raycast_result {
     public boolean collision;
@@ -8,6 +10,21 @@ public class raycast_result {
     public Float3 direction;
     public Float3 origin;
     public double distance;
+    public GameObject object;
+    public int objectIndex = -1;
+    public int triangle = -1;
+    public Float2 barycentric = new Float2();
+    public Float2 uv = new Float2();
+
+    public raycast_result(Float3 position, Float3 direction, Float3 origin, double distance, GameObject object, int objectIndex, int triangle, Float2 barycentric, Float2 uv) {
+        this(true, position, direction, origin);
+        this.distance = distance;
+        this.object = object;
+        this.objectIndex = objectIndex;
+        this.triangle = triangle;
+        this.barycentric = barycentric;
+        this.uv = uv;
+    }
 
     public raycast_result(boolean collision, Float3 position, Float3 direction, Float3 origin) {
         this.collision = collision;
@@ -1,255 +1,172 @@
 package game_engine.render;
 
-import game_engine.material.Material;
-import game_engine.material.shader.FragmentData;
-import game_engine.math.Float2;
-import game_engine.math.Float3;
-import game_engine.math.Maths;
-import game_engine.scene.GameObject;
 import game_engine.scene.Scene;
+import game_engine.script.FixedTimestep;
 import game_engine.script.Input;
 import game_engine.script.Script;
-import game_engine.material.shader.Shader;
 
-import javax.swing.*;
 import java.awt.*;
+import java.awt.image.BufferStrategy;
 import java.awt.image.BufferedImage;
-import java.awt.image.DataBufferInt;
-import java.util.Arrays;
+import java.util.List;
 
-public class Camera extends JPanel {
-    private static final float NEAR_CLIP_DST = .01f;
-    private static final Float3[] STANDARD_WEIGHTS = new Float3[]{
-            new Float3(1f, 0f, 0f), new Float3(0f, 1f, 0f), new Float3(0f, 0f, 1f)};
+// Presents actively from the render thread: every finished frame is upscaled into the back page of a
+// flipping buffer strategy in a single blit and shown, without going through the EDT's repaint queue.
+public class Camera extends Canvas {
+    private static final Font PROFILER_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
 
     public static boolean shaderOverride = false;
     public static boolean showOverdraw = false;
-    private static final float OVERDRAW_LIMIT = 8f;
-    private static final Float3 OVER_OVERDRAW_COLOR = new Float3(1f, .6f, .6f);
     public static boolean shaderStatus = false;
-    private static final Float3 SHADER_RETURN = new Float3(1f, 1f, 1f);
-    private static final Float3 SHADER_DISCARD = new Float3(1f, 0f, 0f);
+    public static boolean deferredShading = false;
+
+    public static boolean tiledRendering = true;
+    public static int renderThreads = Runtime.getRuntime().availableProcessors();
 
     public static float fov;
-    private static int resX;
-    private static float invResX;
-    private static int resY;
-    private static float invResY;
-    private static Float2 screenRes;
+    public static final FrameScheduler scheduler = new FrameScheduler();
     private static int width;
     private static int height;
-    private static float[] depthBuffer;
-    private static BufferedImage renderedImage;
-    private static int[] colorBuffer;
+    private static Renderer renderer;
+    private static RenderPipeline pipeline;
 
     public Camera(float camFov, int resolutionX, int resolutionY, int screenWidth, int screenHeight) {
         fov = camFov;
 
-        resX = resolutionX;
-        invResX = 1f / resX;
-        resY = resolutionY;
-        invResY = 1f / resY;
-        screenRes = new Float2(resX, resY);
-
         width = screenWidth;
         height = screenHeight;
 
-        depthBuffer = new float[resX * resY];
-        renderedImage = new BufferedImage(resX, resY, BufferedImage.TYPE_INT_RGB);
-        colorBuffer = ((DataBufferInt) renderedImage.getRaster().getDataBuffer()).getData();
-    }
-
-    @Override
-    protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
-        Graphics2D g2 = (Graphics2D) g;
-        g2.setColor(Color.white);
-
-        Arrays.fill(colorBuffer, 0x000000);
-        Arrays.fill(depthBuffer, Float.MAX_VALUE);
+        renderer = new Renderer(fov);
+        pipeline = new RenderPipeline(renderer, resolutionX, resolutionY, Camera::applySettings, () -> {
+            present();
+            scheduler.framePresented();
+        });
 
-        Script.updateDeltaTime();
+        setIgnoreRepaint(true);
+        // keep keyboard focus on the window, which owns the key listeners
+        setFocusable(false);
+    }
 
-        if (Scene.camera.active) {
-            float screenHeightWorld = (float) (2f * Math.tan(fov * Maths.DEG_TO_RAD / 2f));
-            float zScale = resY / screenHeightWorld;
+    private static void applySettings(Renderer renderer) {
+        renderer.fov = fov;
+        renderer.shaderOverride = shaderOverride;
+        renderer.showOverdraw = showOverdraw;
+        renderer.shaderStatus = shaderStatus;
+        renderer.deferredShading = deferredShading;
+        renderer.tiledRendering = tiledRendering;
+        renderer.renderThreads = renderThreads;
+        renderer.profile = Profiler.enabled;
+    }
 
-            Scene.updateCamera();
-            for (int o = 0; o < Scene.objectCount(); o++) {
-                GameObject object = Scene.getObject(o);
-                if (object.active) {
-                    object.updateScript();
-                    renderObject(object, o, zScale);
-                }
-            }
+    // Runs on the render thread only, so the strategy is never touched from two threads at once.
+    private void present() {
+        if (!isDisplayable()) return;
+        long start = System.nanoTime();
+        BufferStrategy strategy = getBufferStrategy();
+        if (strategy == null) {
+            createBufferStrategy(2);
+            strategy = getBufferStrategy();
         }
-        Input.updateInput();
+        do {
+            do {
+                Graphics2D g2 = (Graphics2D) strategy.getDrawGraphics();
+                try {
+                    draw(g2);
+                } finally {
+                    g2.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+        Toolkit.getDefaultToolkit().sync();
+        Profiler.record(Profiler.Stage.PRESENT, System.nanoTime() - start);
+    }
 
+    private void draw(Graphics2D g2) {
         g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
-        g2.drawImage(renderedImage, 0, 0, width, height, null);
+        BufferedImage image = pipeline.presentedImage();
+        synchronized (image) {
+            g2.drawImage(image, 0, 0, width, height, null);
+        }
+        g2.setColor(Color.white);
 
         g2.drawString(String.format("fps: %3.2f | min: %3.2f | max: %3.2f", Script.fps, Script.fpsMin, Script.fpsMax), 5, 15);
 
-        g2.drawString(String.format("%s%s%s",
-                shaderOverride ? "shaderOverride " : "", showOverdraw ? "showOverdraw " : "", shaderStatus ? "shaderStatus " : ""), 5, 30);
+        g2.drawString(String.format("objects: %d visible | %d culled | kernel: %s",
+                renderer.visibleObjects, renderer.culledObjects, renderer.kernel.describe()), 5, 30);
+
+        g2.drawString(String.format("%s%s%s%s",
+                shaderOverride ? "shaderOverride " : "", showOverdraw ? "showOverdraw " : "", shaderStatus ? "shaderStatus " : "",
+                deferredShading ? "deferredShading " : ""), 5, 45);
+        g2.drawString(String.format("render: %.2f ms | present: %.2f ms",
+                pipeline.renderTimes().meanMs(), Profiler.stage(Profiler.Stage.PRESENT).meanMs()), 5, height - 25);
+        g2.drawString(String.format("frames: %s %.0f | %s", scheduler.mode, scheduler.targetFps, scheduler.frameTimes().describe()),
+                5, height - 10);
         if (shaderOverride) {
-            g2.drawString(Scene.camera.mat.shader.getClass().getSimpleName(), 5, 50);
+            g2.drawString(Scene.camera.mat.shader.getClass().getSimpleName(), 5, 65);
         } else if (shaderStatus) {
-            g2.drawString("white - regular return", 5, 50);
-            g2.drawString("red   - discarded fragment", 5, 65);
-        }
-    }
-
-    private static void renderObject(GameObject object, int objectIndex, float zScale) {
-        for (int t = 0; t < object.triangleCount(); t++) {
-            Float2[] UVs = object.getTriUVs(t);
-            Float3 worldNormal = object.getTriNormal(t);
-            Float3[] tri = Maths.triToView(object.getTriVertexes(t), Scene.camera.transform);
-            Material mat = object.mat;
-            renderTriangle(tri, zScale, worldNormal, UVs, (mat == null) ? Scene.errorMat : mat, objectIndex, t);
+            g2.drawString("white - regular return", 5, 65);
+            g2.drawString("red   - discarded fragment", 5, 80);
         }
-    }
-
-    private static void renderTriangle(Float3[] tri, float zScale, Float3 worldNormal, Float2[] UVs, Material mat, int oi, int ti) {
-        Float3[] vectors = Scene.camera.transform.invBasisVectors;
-        boolean facingCam = (Maths.rotate(worldNormal, vectors[0], vectors[1], vectors[2]).dotProduct(tri[0]) < 0f);
-
-        if (facingCam) {
-            boolean clipA = (tri[0].z <= NEAR_CLIP_DST);
-            boolean clipB = (tri[1].z <= NEAR_CLIP_DST);
-            boolean clipC = (tri[2].z <= NEAR_CLIP_DST);
-            int clipCount = Maths.boolToInt(clipA) + Maths.boolToInt(clipB) + Maths.boolToInt(clipC);
-
-            switch (clipCount) {
-                case 0:
-                    drawTriangle(triToScreen(tri, zScale), STANDARD_WEIGHTS, worldNormal, UVs, mat, oi, ti);
-                    break;
-                case 1:
-                    int clipIndex = (clipA ? 0 : (clipB ? 1 : 2));
-                    int nextI = (clipIndex + 1) % 3;
-                    int prevI = (clipIndex + 2) % 3;
-                    Float3 clippedP = tri[clipIndex];
-                    Float3 A = tri[nextI];
-                    Float3 B = tri[prevI];
-
-                    float fracA = (NEAR_CLIP_DST - clippedP.z) / (A.z - clippedP.z);
-                    float fracB = (NEAR_CLIP_DST - clippedP.z) / (B.z - clippedP.z);
-                    Float3 clipPointA = clippedP.lerp(A, fracA);
-                    Float3 clipPointB = clippedP.lerp(B, fracB);
-
-                    Float3 weightA = STANDARD_WEIGHTS[clipIndex].lerp(STANDARD_WEIGHTS[nextI], fracA);
-                    Float3 weightB = STANDARD_WEIGHTS[clipIndex].lerp(STANDARD_WEIGHTS[prevI], fracB);
-                    Float3[] weights1 = new Float3[]{STANDARD_WEIGHTS[nextI], STANDARD_WEIGHTS[prevI], weightB};
-                    Float3[] weights2 = new Float3[]{STANDARD_WEIGHTS[nextI], weightA, weightB};
-
-                    drawTriangle(triToScreen(A, B, clipPointB, zScale), weights1, worldNormal, UVs, mat, oi, ti);
-                    drawTriangle(triToScreen(A, clipPointA, clipPointB, zScale), weights2, worldNormal, UVs, mat, oi, ti);
-                    break;
-                case 2:
-                    int nonClipI = ((!clipA) ? 0 : ((!clipB) ? 1 : 2));
-                    int clipIA = (nonClipI + 1) % 3;
-                    int clipIB = (nonClipI + 2) % 3;
-                    Float3 P = tri[nonClipI];
-                    Float3 clippedA = tri[clipIA];
-                    Float3 clippedB = tri[clipIB];
-
-                    float fracX = (NEAR_CLIP_DST - P.z) / (clippedA.z - P.z);
-                    float fracY = (NEAR_CLIP_DST - P.z) / (clippedB.z - P.z);
-                    Float3 clipPointX = P.lerp(clippedA, fracX);
-                    Float3 clipPointY = P.lerp(clippedB, fracY);
-
-                    Float3 weightX = STANDARD_WEIGHTS[nonClipI].lerp(STANDARD_WEIGHTS[clipIA], fracX);
-                    Float3 weightY = STANDARD_WEIGHTS[nonClipI].lerp(STANDARD_WEIGHTS[clipIB], fracY);
-                    Float3[] weights = new Float3[]{STANDARD_WEIGHTS[nonClipI], weightX, weightY};
-
-                    drawTriangle(triToScreen(P, clipPointX, clipPointY, zScale), weights, worldNormal, UVs, mat, oi, ti);
-                    break;
-                default:
-                    break;
+        if (Profiler.overlay) {
+            g2.setFont(PROFILER_FONT);
+            List<String> lines = Profiler.overlayLines();
+            for (int i = 0; i < lines.size(); i++) {
+                g2.drawString(lines.get(i), width - 330, 15 + (i * 14));
             }
         }
     }
-    private static void drawTriangle(Float3[] tri, Float3[] triWeights, Float3 worldNormal, Float2[] UVs, Material mat, int oi, int ti) {
-        Float2 a = tri[0].to2D();
-        Float2 b = tri[1].to2D();
-        Float2 c = tri[2].to2D();
-        Float3 invDepths = new Float3(tri[0].z, tri[1].z, tri[2].z).inverse();
-
-        float minX = Math.min(Math.min(a.x, b.x), c.x);
-        float minY = Math.min(Math.min(a.y, b.y), c.y);
-        float maxX = Math.max(Math.max(a.x, b.x), c.x);
-        float maxY = Math.max(Math.max(a.y, b.y), c.y);
-        int startX = Maths.clamp(0, resX - 1, (int) minX);
-        int startY = Maths.clamp(0, resY - 1, (int) minY);
-        int endX = Maths.clamp(0, resX, (int) Math.ceil(maxX));
-        int endY = Maths.clamp(0, resY, (int) Math.ceil(maxY));
-
-        for (int y = startY; y < endY; y++) {
-            for (int x = startX; x < endX; x++) {
-                Float3 bary = new Float3();
-                if (Maths.pointTriangleTest(a, b, c, new Float2(x, y), bary)) {
-                    float depth = 1f / bary.dotProduct(invDepths);
-                    if (showOverdraw || (depth < getDepth(x, y))) {
-                        Float3 shaderCol = new Float3(1f, 0f, 1f);
-
-                        Shader shader = shaderOverride ? Scene.camera.mat.shader : mat.shader;
-                        if (shader != null) {
-                            Float2 screenUV = new Float2(x * invResX, y * invResY);
-                            Float3 weights = (triWeights[0].scale(bary.x * invDepths.x)
-                                    .add(triWeights[1].scale(bary.y * invDepths.y))
-                                    .add(triWeights[2].scale(bary.z * invDepths.z))).scale(depth);
-
-                            shaderCol = shader.fragment(new FragmentData(screenUV, weights, mat, UVs, worldNormal, depth, oi, ti));
-
-                            if (shaderStatus) {
-                                if (shaderCol.x < 0f) shaderCol = SHADER_DISCARD;
-                                else shaderCol = SHADER_RETURN;
-                            } else {
-                                if (shaderCol.x < 0f) continue;
-                            }
-                        }
 
-                        if (showOverdraw) {
-                            depth = getDepth(x, y);
-                            if (depth == Float.MAX_VALUE) {
-                                depth = 1f;
-                            } else {
-                                depth += 1f;
-                            }
-                            shaderCol = (depth > OVERDRAW_LIMIT) ? OVER_OVERDRAW_COLOR : (new Float3(depth, depth, depth).scale(1 / OVERDRAW_LIMIT));
-                        }
-                        setRGB(x, y, shaderCol.getColor());
-                        setDepth(x, y, depth);
-                    }
-                }
-            }
-        }
-    }
-    private static Float3[] triToScreen(Float3 A, Float3 B, Float3 C, float zScale) {
-        return Maths.triToScreen(A, B, C, screenRes, zScale);
-    }
-    private static Float3[] triToScreen(Float3[] tri, float zScale) {
-        return triToScreen(tri[0], tri[1], tri[2], zScale);
+    // OS paint requests are ignored; an exposed window just asks for a new frame
+    @Override
+    public void paint(Graphics g) {
+        scheduler.requestFrame();
     }
-    private static float getDepth(int x, int y) {
-        return depthBuffer[(y * resX) + x];
+    @Override
+    public void update(Graphics g) {
+        scheduler.requestFrame();
     }
-    private static void setDepth(int x, int y, float d) {
-        depthBuffer[(y * resX) + x] = d;
+
+    public static void resetFrameStats() {
+        scheduler.frameTimes().reset();
+        pipeline.renderTimes().reset();
+        Profiler.reset();
     }
-    private static void setRGB(int x, int y, int color) {
-        colorBuffer[(y * resX) + x] = color;
+
+    public void requestFrame() {
+        scheduler.requestFrame();
     }
 
+    // Scripts run on the simulation thread, paced by the scheduler; each frame's snapshot is rendered on the
+    // pipeline's thread while the next frame is simulated, and every finished frame is presented from there.
     public void startRendering() {
+        pipeline.start();
         new Thread(() -> {
-            while (true) {
-                try {
-                    repaint();
-                } catch (Exception e) {
-                    e.printStackTrace();
+            try {
+                while (true) {
+                    scheduler.awaitNextFrame();
+                    Script.updateDeltaTime();
+                    try {
+                        if (Scene.camera.active) {
+                            long start = System.nanoTime();
+                            FixedTimestep.advance(Script.deltaTime);
+                            long stepped = System.nanoTime();
+                            Scene.updateScripts();
+                            Profiler.record(Profiler.Stage.PHYSICS, stepped - start);
+                            Profiler.record(Profiler.Stage.SCRIPTS, System.nanoTime() - stepped);
+                        }
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    }
+                    FrameSnapshot frame = FrameSnapshot.capture();
+                    Input.updateInput();
+                    if (scheduler.shouldRender(frame)) {
+                        pipeline.submit(frame);
+                    }
                 }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
-        }).start();
+        }, "simulation").start();
     }
 }
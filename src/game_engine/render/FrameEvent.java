@@ -0,0 +1,38 @@
+package game_engine.render;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// The engine's JFR events are all disabled by default, so an ordinary recording pays nothing for them. Enable
+// them by name in a custom .jfc, e.g. <event name="game_engine.Frame"><setting name="enabled">true</setting></event>,
+// or with Recording.enable("game_engine.Frame"); the other events are game_engine.ScriptUpdate,
+// game_engine.RaycastBatch, game_engine.CollisionQuery and game_engine.TextureUpload.
+@Name("game_engine.Frame")
+@Label("Frame")
+@Description("One frame rendered by a Renderer")
+@Category({"Game Engine", "Render"})
+@Enabled(false)
+class FrameEvent extends Event {
+    @Label("Width")
+    int width;
+    @Label("Height")
+    int height;
+    @Label("Visible Objects")
+    int visibleObjects;
+    @Label("Culled Objects")
+    int culledObjects;
+    @Label("Triangles")
+    long triangles;
+    @Label("Fragments")
+    long fragments;
+    @Label("Shaded Fragments")
+    long shadedFragments;
+    @Label("Tiled")
+    boolean tiled;
+    @Label("Deferred")
+    boolean deferred;
+}
@@ -0,0 +1,100 @@
+package game_engine.render;
+
+import java.util.concurrent.locks.LockSupport;
+
+// Paces the simulation loop. TARGET_FPS starts a frame every 1/targetFps seconds, UNCAPPED starts the next one
+// as soon as the renderer accepts it, and ON_DEMAND ticks like TARGET_FPS but only hands frames to the renderer
+// when input arrived or the captured scene differs from the last one drawn. A frame that overruns its slot
+// moves the schedule instead of being followed by a burst of catch-up frames.
+public class FrameScheduler {
+    public enum Mode {TARGET_FPS, UNCAPPED, ON_DEMAND}
+
+    private static final long SPIN_NANOS = 1_000_000L;
+
+    public volatile Mode mode = Mode.TARGET_FPS;
+    public volatile double targetFps = 60d;
+
+    private final FrameTimeHistogram frameTimes = new FrameTimeHistogram();
+    private final Object wakeLock = new Object();
+    private boolean frameRequested = true;
+    private long nextFrameNanos = -1L;
+    private long lastPresentNanos = -1L;
+    private long overBudgetFrames;
+    private FrameSnapshot lastRendered;
+
+    // Blocks until the next frame is due, or in ON_DEMAND mode until then or an earlier requestFrame().
+    public void awaitNextFrame() throws InterruptedException {
+        if (mode == Mode.UNCAPPED) {
+            nextFrameNanos = -1L;
+            return;
+        }
+        long period = (long) (1_000_000_000d / targetFps);
+        long now = System.nanoTime();
+        if (nextFrameNanos < 0L || now - nextFrameNanos > period) {
+            if (nextFrameNanos >= 0L) overBudgetFrames++;
+            nextFrameNanos = now;
+        }
+        long deadline = nextFrameNanos;
+        nextFrameNanos += period;
+
+        if (mode == Mode.ON_DEMAND) {
+            synchronized (wakeLock) {
+                long wait;
+                while (!frameRequested && (wait = deadline - System.nanoTime()) > 0L) {
+                    wakeLock.wait(wait / 1_000_000L, (int) (wait % 1_000_000L));
+                }
+            }
+            return;
+        }
+        long wait;
+        while ((wait = deadline - System.nanoTime()) > SPIN_NANOS) {
+            LockSupport.parkNanos(wait - SPIN_NANOS);
+            if (Thread.interrupted()) throw new InterruptedException();
+        }
+        while (deadline - System.nanoTime() > 0L) {
+            Thread.onSpinWait();
+        }
+    }
+
+    public void nextMode() {
+        mode = Mode.values()[(mode.ordinal() + 1) % Mode.values().length];
+        requestFrame();
+    }
+
+    // Called from input handlers; wakes an idle ON_DEMAND loop and forces the next frame to be drawn.
+    public void requestFrame() {
+        synchronized (wakeLock) {
+            frameRequested = true;
+            wakeLock.notifyAll();
+        }
+    }
+
+    public boolean shouldRender(FrameSnapshot frame) {
+        boolean requested;
+        synchronized (wakeLock) {
+            requested = frameRequested;
+            frameRequested = false;
+        }
+        if (mode == Mode.ON_DEMAND && !requested && frame.sameContent(lastRendered)) {
+            return false;
+        }
+        lastRendered = frame;
+        return true;
+    }
+
+    // Called when a frame has been rendered; the interval between presented frames is what the player sees.
+    public void framePresented() {
+        long now = System.nanoTime();
+        if (lastPresentNanos >= 0L) {
+            frameTimes.record(now - lastPresentNanos);
+        }
+        lastPresentNanos = now;
+    }
+
+    public FrameTimeHistogram frameTimes() {
+        return frameTimes;
+    }
+    public long overBudgetFrames() {
+        return overBudgetFrames;
+    }
+}
@@ -0,0 +1,125 @@
+package game_engine.render;
+
+import game_engine.material.Material;
+import game_engine.material.shader.Shader;
+import game_engine.math.Float3;
+import game_engine.scene.GameObject;
+import game_engine.scene.Model;
+import game_engine.scene.Scene;
+import game_engine.script.Script;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+// Everything the renderer reads from the scene for one frame, captured on the simulation thread. World vertex
+// and normal arrays are shared with the objects' caches, which are replaced rather than written, so a snapshot
+// stays valid while the scripts of the next frame move things around. Materials are frozen copies, and the
+// lighting and script time shaders read are captured too, so nothing the scripts change reaches a frame in flight.
+public final class FrameSnapshot {
+    // Reused while the source material's fields are unchanged, so unchanged frames still compare equal. Only
+    // touched by capture, on the simulation thread.
+    private static final Map<Material, Material> frozenMaterials = new WeakHashMap<>();
+
+    final boolean cameraActive;
+    final Float3 cameraPos;
+    final Float3[] cameraInvBasis;
+    final Shader cameraShader;
+    final Float3 dirToSun;
+    final float envLight;
+    final double time;
+
+    final int objectCount;
+    final int[] objectIndexes;
+    final Model[] models;
+    final Material[] materials;
+    final Float3[][] worldVertexes;
+    final Float3[][] worldNormals;
+    final Float3[] boundsCenters;
+    final float[] boundsRadii;
+
+    private FrameSnapshot(int capacity, GameObject camera) {
+        cameraActive = (camera != null) && camera.active;
+        if (cameraActive) {
+            Float3 pos = camera.transform.pos;
+            Float3[] invBasis = camera.transform.invBasisVectors;
+            cameraPos = new Float3(pos.x, pos.y, pos.z);
+            cameraInvBasis = new Float3[]{copy(invBasis[0]), copy(invBasis[1]), copy(invBasis[2])};
+            cameraShader = (camera.mat == null) ? null : camera.mat.shader;
+        } else {
+            cameraPos = null;
+            cameraInvBasis = null;
+            cameraShader = null;
+        }
+        dirToSun = copy(Scene.dirToSun);
+        envLight = Scene.envLight;
+        time = Script.time;
+        objectIndexes = new int[capacity];
+        models = new Model[capacity];
+        materials = new Material[capacity];
+        worldVertexes = new Float3[capacity][];
+        worldNormals = new Float3[capacity][];
+        boundsCenters = new Float3[capacity];
+        boundsRadii = new float[capacity];
+
+        int count = 0;
+        for (int o = 0; cameraActive && o < capacity; o++) {
+            GameObject object = Scene.getObject(o);
+            if (!object.active) continue;
+            objectIndexes[count] = o;
+            models[count] = object.getModel();
+            materials[count] = freeze((object.mat == null) ? Scene.errorMat : object.mat);
+            worldVertexes[count] = object.getWorldVertexes();
+            worldNormals[count] = object.getWorldNormals();
+            boundsCenters[count] = object.getWorldBoundsCenter();
+            boundsRadii[count] = object.getWorldBoundsRadius();
+            count++;
+        }
+        objectCount = count;
+    }
+
+    // Must run on the thread that updates the scene.
+    public static FrameSnapshot capture() {
+        return new FrameSnapshot(Scene.objectCount(), Scene.camera);
+    }
+
+    private static Material freeze(Material mat) {
+        Material frozen = frozenMaterials.get(mat);
+        if (frozen == null || frozen.shader != mat.shader || frozen.tex != mat.tex || frozen.scale.x != mat.scale.x
+                || frozen.scale.y != mat.scale.y || frozen.renderData != mat.renderData) {
+            frozen = new Material(mat.shader, mat.tex, mat.scale.x, mat.scale.y, mat.renderData);
+            frozenMaterials.put(mat, frozen);
+        }
+        return frozen;
+    }
+
+    public int objectCount() {
+        return objectCount;
+    }
+
+    // True when drawing `other` would produce the same image, given the same renderer settings. Time is left out
+    // so an idle scene stays idle; shaders animated by it only advance on frames drawn for another reason.
+    boolean sameContent(FrameSnapshot other) {
+        if (other == null || cameraActive != other.cameraActive || objectCount != other.objectCount) return false;
+        if (envLight != other.envLight || !sameVector(dirToSun, other.dirToSun)) return false;
+        if (cameraActive) {
+            if (cameraShader != other.cameraShader || !sameVector(cameraPos, other.cameraPos)) return false;
+            for (int i = 0; i < 3; i++) {
+                if (!sameVector(cameraInvBasis[i], other.cameraInvBasis[i])) return false;
+            }
+        }
+        for (int i = 0; i < objectCount; i++) {
+            if (objectIndexes[i] != other.objectIndexes[i] || models[i] != other.models[i] || materials[i] != other.materials[i]
+                    || worldVertexes[i] != other.worldVertexes[i] || worldNormals[i] != other.worldNormals[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    private static boolean sameVector(Float3 a, Float3 b) {
+        return a.x == b.x && a.y == b.y && a.z == b.z;
+    }
+
+    private static Float3 copy(Float3 f3) {
+        return new Float3(f3.x, f3.y, f3.z);
+    }
+}
@@ -0,0 +1,114 @@
+package game_engine.render;
+
+import java.util.Arrays;
+
+// Distribution of frame times in fixed 0.25 ms buckets up to 250 ms, plus one bucket for anything slower.
+// A windowed histogram only counts its most recent samples, so its percentiles follow the last few seconds; as it
+// keeps those samples anyway, its percentiles are exact rather than bucket edges.
+public class FrameTimeHistogram {
+    private static final double BUCKET_MS = .25d;
+    private static final int BUCKETS = 1000;
+
+    private final long[] counts = new long[BUCKETS + 1];
+    private long total;
+    private double sumMs;
+    private double maxMs;
+    // ring of the samples still counted, null when every sample counts
+    private final double[] window;
+    private int next;
+    private double[] sorted;
+    private boolean sortedValid;
+
+    public FrameTimeHistogram() {
+        window = null;
+    }
+    public FrameTimeHistogram(int windowSize) {
+        window = new double[windowSize];
+        sorted = new double[windowSize];
+    }
+
+    public synchronized void record(long nanos) {
+        double ms = nanos / 1_000_000d;
+        if (window != null) {
+            if (total == window.length) {
+                double oldest = window[next];
+                counts[bucket(oldest)]--;
+                total--;
+                sumMs -= oldest;
+                window[next] = ms;
+                // the evicted sample may have been the maximum; the full window holds everything still counted
+                if (oldest >= maxMs) maxMs = windowMax();
+            }
+            window[next] = ms;
+            next = (next + 1) % window.length;
+            sortedValid = false;
+        }
+        counts[bucket(ms)]++;
+        total++;
+        sumMs += ms;
+        maxMs = Math.max(maxMs, ms);
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(counts, 0L);
+        total = 0L;
+        sumMs = 0d;
+        maxMs = 0d;
+        next = 0;
+        sortedValid = false;
+    }
+
+    private static int bucket(double ms) {
+        return Math.min(BUCKETS, (int) (ms / BUCKET_MS));
+    }
+    private double windowMax() {
+        double max = 0d;
+        for (double ms : window) {
+            max = Math.max(max, ms);
+        }
+        return max;
+    }
+
+    public synchronized long count() {
+        return total;
+    }
+    public synchronized double meanMs() {
+        return (total == 0L) ? 0d : sumMs / total;
+    }
+    public synchronized double maxMs() {
+        return maxMs;
+    }
+    // upper edge of the bucket holding the p-th percentile (0-100), or the exact sample for a windowed histogram
+    public synchronized double percentileMs(double p) {
+        if (total == 0L) return 0d;
+        long rank = Math.max(1L, (long) Math.ceil(total * (p / 100d)));
+        if (window != null) {
+            if (!sortedValid) {
+                // until the ring is full the samples are window[0, total)
+                System.arraycopy(window, 0, sorted, 0, (int) total);
+                Arrays.sort(sorted, 0, (int) total);
+                sortedValid = true;
+            }
+            return sorted[(int) rank - 1];
+        }
+        long seen = 0L;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return (i == BUCKETS) ? maxMs : Math.min(maxMs, (i + 1) * BUCKET_MS);
+            }
+        }
+        return maxMs;
+    }
+    public synchronized long[] bucketCounts() {
+        return counts.clone();
+    }
+    public double bucketWidthMs() {
+        return BUCKET_MS;
+    }
+
+    public String describe() {
+        return String.format("p50 %.2f | p95 %.2f | p99 %.2f | max %.2f ms",
+                percentileMs(50d), percentileMs(95d), percentileMs(99d), maxMs());
+    }
+}
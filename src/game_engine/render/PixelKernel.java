@@ -0,0 +1,45 @@
+package game_engine.render;
+
+import game_engine.material.shader.ShadeSpan;
+
+// Row-level inner loops of the rasterizer and shaders. The vector implementation is only loaded when the
+// jdk.incubator.vector module is present (run with --add-modules jdk.incubator.vector); both implementations
+// produce bit-identical results, so the choice only affects speed. -Dengine.scalar=true forces the scalar one.
+public abstract class PixelKernel implements ShadeSpan.ColorScaler {
+    private static final PixelKernel SCALAR = new ScalarPixelKernel();
+    private static final PixelKernel SELECTED = select();
+
+    public static PixelKernel get() {
+        return SELECTED;
+    }
+    public static PixelKernel scalar() {
+        return SCALAR;
+    }
+
+    private static PixelKernel select() {
+        if (Boolean.getBoolean("engine.scalar") || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return SCALAR;
+        }
+        try {
+            return (PixelKernel) Class.forName("game_engine.render.VectorPixelKernel").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return SCALAR;
+        }
+    }
+
+    public abstract String name();
+    // pixels processed per step of the rasterizer row loop
+    public abstract int lanes();
+    public String describe() {
+        return name() + " x" + lanes();
+    }
+
+    // Covers one row of `count` pixels starting at edge values eA/eB/eC and writes the pixels that pass the
+    // coverage test, and the depth test when depthTest is set, to `out`. Returns how many passed.
+    abstract int coverRow(Renderer.ScreenTriangle tri, long eA, long eB, long eC, int count,
+                          float[] depthBuffer, int index, boolean depthTest, RowCoverage out);
+
+    // Scales the channels of packed 0xRRGGBB colors, matching ShadeSpan.scaleColors.
+    @Override
+    public abstract void scaleColors(int[] colors, int count, float scale);
+}
@@ -0,0 +1,123 @@
+package game_engine.render;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Per-stage frame timings and per-frame raster counters. Stages are timed around whole passes (per object, per
+// tile, per span), never per pixel, so the cost is a few thousand nanoTime calls a frame and it stays on by
+// default. Each stage keeps a rolling histogram of its last WINDOW frames.
+public abstract class Profiler {
+    public enum Stage {
+        SCRIPTS("scripts"),
+        PHYSICS("physics"),
+        TRANSFORM("transform"),
+        CLIP("clip"),
+        RASTER("raster"),
+        SHADE("shade"),
+        PRESENT("present");
+
+        public final String label;
+
+        Stage(String label) {
+            this.label = label;
+        }
+    }
+
+    public static final int WINDOW = 300;
+
+    public static volatile boolean enabled = true;
+    public static volatile boolean overlay = false;
+
+    // counters of the last rendered frame
+    public static volatile long triangles;
+    public static volatile long fragments;
+    public static volatile long shadedFragments;
+    public static volatile long coveredPixels;
+
+    private static final FrameTimeHistogram[] stages = new FrameTimeHistogram[Stage.values().length];
+    static {
+        for (int i = 0; i < stages.length; i++) {
+            stages[i] = new FrameTimeHistogram(WINDOW);
+        }
+    }
+
+    public static void record(Stage stage, long nanos) {
+        if (enabled) stages[stage.ordinal()].record(nanos);
+    }
+
+    // called on the render thread after every frame
+    public static void recordFrame(Renderer renderer) {
+        triangles = renderer.triangleCount;
+        fragments = renderer.fragmentCount;
+        shadedFragments = renderer.shadedFragmentCount;
+        coveredPixels = renderer.coveredPixelCount;
+        if (!enabled || !renderer.profile) return;
+        stages[Stage.TRANSFORM.ordinal()].record(renderer.transformNanos);
+        stages[Stage.CLIP.ordinal()].record(renderer.clipNanos);
+        stages[Stage.RASTER.ordinal()].record(renderer.rasterNanos);
+        stages[Stage.SHADE.ordinal()].record(renderer.shadeNanos);
+    }
+
+    public static FrameTimeHistogram stage(Stage stage) {
+        return stages[stage.ordinal()];
+    }
+
+    // fragments that passed the depth test per pixel that ended up covered; 1 means nothing was drawn twice
+    public static double overdraw() {
+        long covered = coveredPixels;
+        return (covered == 0L) ? 0d : fragments / (double) covered;
+    }
+
+    public static void reset() {
+        for (FrameTimeHistogram stage : stages) {
+            stage.reset();
+        }
+    }
+
+    public static List<String> overlayLines() {
+        List<String> lines = new ArrayList<>();
+        lines.add("stage        p50     p95     p99  (ms)");
+        for (Stage stage : Stage.values()) {
+            FrameTimeHistogram times = stage(stage);
+            lines.add(String.format("%-9s %7.2f %7.2f %7.2f", stage.label,
+                    times.percentileMs(50d), times.percentileMs(95d), times.percentileMs(99d)));
+        }
+        lines.add(String.format("tris %d | frags %d | shaded %d | overdraw %.2f", triangles, fragments, shadedFragments, overdraw()));
+        return lines;
+    }
+
+    // JSON snapshot of every stage over the current window and the last frame's counters
+    public static String dump() {
+        StringBuilder json = new StringBuilder("{\n  \"window\": ").append(WINDOW).append(",\n  \"stages\": {\n");
+        Stage[] values = Stage.values();
+        for (int i = 0; i < values.length; i++) {
+            FrameTimeHistogram times = stage(values[i]);
+            json.append(String.format(Locale.ROOT,
+                    "    \"%s\": {\"count\": %d, \"meanMs\": %.4f, \"p50Ms\": %.4f, \"p95Ms\": %.4f, \"p99Ms\": %.4f, \"maxMs\": %.4f}",
+                    values[i].label, times.count(), times.meanMs(), times.percentileMs(50d), times.percentileMs(95d),
+                    times.percentileMs(99d), times.maxMs()));
+            json.append((i + 1 < values.length) ? ",\n" : "\n");
+        }
+        json.append(String.format(Locale.ROOT,
+                "  },\n  \"counters\": {\"triangles\": %d, \"fragments\": %d, \"shadedFragments\": %d, \"coveredPixels\": %d, \"overdraw\": %.4f}\n}\n",
+                triangles, fragments, shadedFragments, coveredPixels, overdraw()));
+        return json.toString();
+    }
+
+    // writes dump() to profile-<millis>.json in the working directory
+    public static void writeDump() {
+        Path path = Paths.get("profile-" + System.currentTimeMillis() + ".json");
+        try {
+            Files.write(path, dump().getBytes(StandardCharsets.UTF_8));
+            System.out.println("profile written to " + path.toAbsolutePath());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package game_engine.render;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+
+// Renders submitted snapshots on its own thread, so the scripts of frame N+1 run while frame N is rasterized.
+// At most one snapshot waits behind the one being drawn; submit() blocks beyond that, which keeps the
+// simulation from running ahead of what can be shown. Frames alternate between two targets and the presenter
+// always reads the last finished one.
+public class RenderPipeline {
+    private final Renderer renderer;
+    private final Consumer<Renderer> configure;
+    private final Runnable onFrame;
+    private final RenderTarget[] targets = new RenderTarget[2];
+    private final BufferedImage[] images = new BufferedImage[2];
+    private final BlockingQueue<FrameSnapshot> pending = new ArrayBlockingQueue<>(1);
+    private final FrameTimeHistogram renderTimes = new FrameTimeHistogram();
+    private volatile int presented = 0;
+    private Thread thread;
+
+    // configure runs on the render thread before every frame, onFrame after every finished frame
+    public RenderPipeline(Renderer renderer, int width, int height, Consumer<Renderer> configure, Runnable onFrame) {
+        this.renderer = renderer;
+        this.configure = configure;
+        this.onFrame = onFrame;
+        for (int i = 0; i < 2; i++) {
+            images[i] = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            int[] colorBuffer = ((DataBufferInt) images[i].getRaster().getDataBuffer()).getData();
+            targets[i] = new RenderTarget(width, height, colorBuffer);
+        }
+    }
+
+    public synchronized void start() {
+        if (thread != null) return;
+        thread = new Thread(this::renderLoop, "render");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void submit(FrameSnapshot frame) throws InterruptedException {
+        pending.put(frame);
+    }
+
+    // Callers must hold the lock on the returned image while reading it.
+    public BufferedImage presentedImage() {
+        return images[presented];
+    }
+
+    // time spent rasterizing each frame, excluding presentation
+    public FrameTimeHistogram renderTimes() {
+        return renderTimes;
+    }
+
+    private void renderLoop() {
+        try {
+            while (true) {
+                FrameSnapshot frame = pending.take();
+                int back = 1 - presented;
+                synchronized (images[back]) {
+                    long start = System.nanoTime();
+                    configure.accept(renderer);
+                    renderer.render(frame, targets[back]);
+                    renderTimes.record(System.nanoTime() - start);
+                    Profiler.recordFrame(renderer);
+                }
+                presented = back;
+                onFrame.run();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            renderer.shutdown();
+        }
+    }
+}
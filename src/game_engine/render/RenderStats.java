@@ -0,0 +1,28 @@
+package game_engine.render;
+
+// Counters one thread collects while drawing a frame; tile workers keep their own and the renderer sums them.
+final class RenderStats {
+    // time spent inside drawTriangle/shadeVisible, shading included
+    long drawNanos;
+    long shadeNanos;
+    long fragments;
+    long shadedFragments;
+    // pixels written for the first time this frame
+    long coveredPixels;
+
+    void add(RenderStats other) {
+        drawNanos += other.drawNanos;
+        shadeNanos += other.shadeNanos;
+        fragments += other.fragments;
+        shadedFragments += other.shadedFragments;
+        coveredPixels += other.coveredPixels;
+    }
+
+    void clear() {
+        drawNanos = 0L;
+        shadeNanos = 0L;
+        fragments = 0L;
+        shadedFragments = 0L;
+        coveredPixels = 0L;
+    }
+}
@@ -0,0 +1,42 @@
+package game_engine.render;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+public class RenderTarget {
+    public final int width;
+    public final int height;
+    public final int[] colorBuffer;
+    public final float[] depthBuffer;
+
+    public RenderTarget(int width, int height, int[] colorBuffer) {
+        if (colorBuffer.length != width * height) {
+            throw new IllegalArgumentException("color buffer does not match " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.colorBuffer = colorBuffer;
+        this.depthBuffer = new float[width * height];
+    }
+    public RenderTarget(int width, int height) {
+        this(width, height, new int[width * height]);
+    }
+
+    public void clear() {
+        Arrays.fill(colorBuffer, 0x000000);
+        Arrays.fill(depthBuffer, Float.MAX_VALUE);
+    }
+
+    public int getRGB(int x, int y) {
+        return colorBuffer[(y * width) + x];
+    }
+    public float getDepth(int x, int y) {
+        return depthBuffer[(y * width) + x];
+    }
+
+    public BufferedImage toImage() {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, width, height, colorBuffer, 0, width);
+        return image;
+    }
+}
@@ -33,6 +33,8 @@ public class RenderWindow extends JFrame implements KeyListener, MouseMotionList
         setLocationRelativeTo(null);
 
         cam = new Camera(fov, windowWidth / scalingFactor, WINDOW_HEIGHT / scalingFactor, windowWidth, WINDOW_HEIGHT);
+        // the canvas is heavyweight, so mouse motion over it is delivered to it rather than to the frame
+        cam.addMouseMotionListener(this);
         add(cam);
 
         try {
@@ -57,10 +59,12 @@ public class RenderWindow extends JFrame implements KeyListener, MouseMotionList
             System.exit(0);
         }
         Input.pressKey(e.getKeyCode());
+        cam.requestFrame();
     }
     @Override
     public void keyReleased(KeyEvent e) {
         Input.releaseKey(e.getKeyCode());
+        cam.requestFrame();
     }
 
     @Override
@@ -73,5 +77,6 @@ public class RenderWindow extends JFrame implements KeyListener, MouseMotionList
                 (e.getXOnScreen() - getX() - halfWidth) / ((float) halfWidth),
                 (e.getYOnScreen() - getY() - halfHeight) / ((float) halfHeight));
         robot.mouseMove(getX() + halfWidth, getY() + halfHeight);
+        cam.requestFrame();
     }
 }
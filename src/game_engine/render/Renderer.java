@@ -0,0 +1,754 @@
+package game_engine.render;
+
+import game_engine.material.Material;
+import game_engine.material.Texture;
+import game_engine.material.shader.ShadeSpan;
+import game_engine.material.shader.Shader;
+import game_engine.math.Float2;
+import game_engine.math.Float3;
+import game_engine.math.Maths;
+import game_engine.scene.Model;
+import game_engine.scene.Scene;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class Renderer {
+    private static final float NEAR_CLIP_DST = .01f;
+    private static final Float3[] STANDARD_WEIGHTS = new Float3[]{
+            new Float3(1f, 0f, 0f), new Float3(0f, 1f, 0f), new Float3(0f, 0f, 1f)};
+
+    private static final float OVERDRAW_LIMIT = 8f;
+    private static final Float3 OVER_OVERDRAW_COLOR = new Float3(1f, .6f, .6f);
+    private static final Float3 SHADER_RETURN = new Float3(1f, 1f, 1f);
+    private static final Float3 SHADER_DISCARD = new Float3(1f, 0f, 0f);
+    private static final int MISSING_SHADER_COLOR = 0xff00ff;
+    private static final int TILE_SIZE = 32;
+    private static final int SUBPIXEL_BITS = 4;
+    private static final float SUBPIXEL_SCALE = 1 << SUBPIXEL_BITS;
+    private static final float GUARD_BAND = 1 << 22;
+
+    public float fov;
+    public boolean shaderOverride = false;
+    public boolean showOverdraw = false;
+    public boolean shaderStatus = false;
+    public boolean tiledRendering = true;
+    public boolean deferredShading = false;
+    public boolean frustumCulling = true;
+    public int visibleObjects;
+    public int culledObjects;
+    public int renderThreads = Runtime.getRuntime().availableProcessors();
+    public PixelKernel kernel = PixelKernel.get();
+    // stage times are only taken when this is set; the counters are always kept
+    public boolean profile = true;
+
+    // statistics of the last rendered frame; raster and shading times are summed over all tile workers
+    public long transformNanos;
+    public long clipNanos;
+    public long rasterNanos;
+    public long shadeNanos;
+    public long triangleCount;
+    public long fragmentCount;
+    public long shadedFragmentCount;
+    public long coveredPixelCount;
+
+    private FrameSnapshot frame;
+    private RenderTarget target;
+    private float invResX;
+    private float invResY;
+    private Float2 screenRes;
+    private boolean deferredFrame;
+    private float frustumSideX;
+    private float frustumSideXZ;
+    private float frustumSideY;
+    private float frustumSideYZ;
+    private int[] visTriangle;
+    private float[] visWeightA;
+    private float[] visWeightB;
+    private float[] visWeightC;
+
+    private int tilesX;
+    private TileBin[] tileBins = new TileBin[0];
+    private final List<ScreenTriangle> screenTriangles = new ArrayList<>();
+    private final AtomicInteger nextTile = new AtomicInteger();
+    private final ShadeSpan span = new ShadeSpan();
+    private final RowCoverage row = new RowCoverage();
+    private final RenderStats stats = new RenderStats();
+    private Float3[] viewVertexes = new Float3[0];
+    private Float3[] viewNormals = new Float3[0];
+    private ExecutorService workers;
+    private int workerCount;
+
+    public Renderer(float fov) {
+        this.fov = fov;
+    }
+
+    public void render(RenderTarget target) {
+        render(FrameSnapshot.capture(), target);
+    }
+    // Only reads the snapshot, so it may run on another thread while the scene is already being updated.
+    public void render(FrameSnapshot frame, RenderTarget target) {
+        FrameEvent event = new FrameEvent();
+        event.begin();
+        target.clear();
+        transformNanos = 0L;
+        clipNanos = 0L;
+        triangleCount = 0L;
+        stats.clear();
+        if (!frame.cameraActive) {
+            publishStats();
+            event.commit();
+            return;
+        }
+
+        this.frame = frame;
+        setTarget(target);
+        span.colorScaler = kernel;
+        span.setFrame(frame.dirToSun, frame.envLight, frame.time);
+        float screenHeightWorld = (float) (2f * Math.tan(fov * Maths.DEG_TO_RAD / 2f));
+        float zScale = target.height / screenHeightWorld;
+
+        boolean tiled = tiledRendering && (renderThreads > 1);
+        deferredFrame = deferredShading && !showOverdraw;
+        setFrustum(screenHeightWorld * .5f);
+        visibleObjects = 0;
+        culledObjects = 0;
+        for (int i = 0; i < frame.objectCount; i++) {
+            if (frustumCulling && outsideFrustum(frame.boundsCenters[i], frame.boundsRadii[i])) {
+                culledObjects++;
+                continue;
+            }
+            visibleObjects++;
+            renderObject(i, zScale, tiled);
+        }
+        if (tiled) {
+            renderTiles();
+        } else if (deferredFrame) {
+            long start = profile ? System.nanoTime() : 0L;
+            shadeVisible(0, 0, target.width, target.height, span, stats);
+            if (profile) stats.drawNanos += System.nanoTime() - start;
+            screenTriangles.clear();
+        }
+        this.frame = null;
+        publishStats();
+        if (event.shouldCommit()) {
+            event.width = target.width;
+            event.height = target.height;
+            event.visibleObjects = visibleObjects;
+            event.culledObjects = culledObjects;
+            event.triangles = triangleCount;
+            event.fragments = fragmentCount;
+            event.shadedFragments = shadedFragmentCount;
+            event.tiled = tiled;
+            event.deferred = deferredFrame;
+            event.commit();
+        }
+    }
+
+    private void publishStats() {
+        rasterNanos = stats.drawNanos - stats.shadeNanos;
+        shadeNanos = stats.shadeNanos;
+        fragmentCount = stats.fragments;
+        shadedFragmentCount = stats.shadedFragments;
+        coveredPixelCount = stats.coveredPixels;
+    }
+
+    public void shutdown() {
+        if (workers != null) {
+            workers.shutdown();
+            workers = null;
+        }
+    }
+
+    // The side planes pass through the eye; each is stored as the unit normal's (lateral, z) components.
+    private void setFrustum(float tanHalfY) {
+        float tanHalfX = tanHalfY * target.width / target.height;
+        float invLengthX = (float) (1d / Math.sqrt(1d + (tanHalfX * tanHalfX)));
+        float invLengthY = (float) (1d / Math.sqrt(1d + (tanHalfY * tanHalfY)));
+        frustumSideX = invLengthX;
+        frustumSideXZ = tanHalfX * invLengthX;
+        frustumSideY = invLengthY;
+        frustumSideYZ = tanHalfY * invLengthY;
+    }
+    private boolean outsideFrustum(Float3 center, float radius) {
+        Float3[] invBasis = frame.cameraInvBasis;
+        float dx = center.x - frame.cameraPos.x;
+        float dy = center.y - frame.cameraPos.y;
+        float dz = center.z - frame.cameraPos.z;
+        float x = (invBasis[0].x * dx) + (invBasis[1].x * dy) + (invBasis[2].x * dz);
+        float y = (invBasis[0].y * dx) + (invBasis[1].y * dy) + (invBasis[2].y * dz);
+        float z = (invBasis[0].z * dx) + (invBasis[1].z * dy) + (invBasis[2].z * dz);
+
+        if (z + radius < NEAR_CLIP_DST) return true;
+        float sideZ = z * frustumSideXZ;
+        if ((x * frustumSideX) - sideZ > radius || (-x * frustumSideX) - sideZ > radius) return true;
+        sideZ = z * frustumSideYZ;
+        return ((y * frustumSideY) - sideZ > radius) || ((-y * frustumSideY) - sideZ > radius);
+    }
+
+    private void setTarget(RenderTarget target) {
+        if (this.target == null || this.target.width != target.width || this.target.height != target.height) {
+            invResX = 1f / target.width;
+            invResY = 1f / target.height;
+            screenRes = new Float2(target.width, target.height);
+
+            tilesX = (target.width + TILE_SIZE - 1) / TILE_SIZE;
+            int tilesY = (target.height + TILE_SIZE - 1) / TILE_SIZE;
+            tileBins = new TileBin[tilesX * tilesY];
+            for (int i = 0; i < tileBins.length; i++) {
+                tileBins[i] = new TileBin();
+            }
+
+            int pixels = target.width * target.height;
+            visTriangle = new int[pixels];
+            Arrays.fill(visTriangle, -1);
+            visWeightA = new float[pixels];
+            visWeightB = new float[pixels];
+            visWeightC = new float[pixels];
+        }
+        this.target = target;
+    }
+
+    private void renderObject(int i, float zScale, boolean tiled) {
+        long start = profile ? System.nanoTime() : 0L;
+        Model model = frame.models[i];
+        Float3[] worldVertexes = frame.worldVertexes[i];
+        Float3[] worldNormals = frame.worldNormals[i];
+        viewVertexes = toView(worldVertexes, viewVertexes, frame.cameraPos, frame.cameraInvBasis);
+        viewNormals = toView(worldNormals, viewNormals, null, frame.cameraInvBasis);
+        long transformed = profile ? System.nanoTime() : 0L;
+        long drawnBefore = stats.drawNanos;
+
+        Material mat = frame.materials[i];
+        int objectIndex = frame.objectIndexes[i];
+        for (int t = 0; t < model.triangleCount(); t++) {
+            int a = model.getTriVertexIndex(t, 0);
+            int n = model.getTriNormalIndex(t);
+            if (viewNormals[n].dotProduct(viewVertexes[a]) < 0f) {
+                int b = model.getTriVertexIndex(t, 1);
+                int c = model.getTriVertexIndex(t, 2);
+                renderTriangle(new Float3[]{viewVertexes[a], viewVertexes[b], viewVertexes[c]}, zScale,
+                        new Float3[]{worldVertexes[a], worldVertexes[b], worldVertexes[c]}, worldNormals[n], model, mat, objectIndex, t, tiled);
+            }
+        }
+        if (profile) {
+            // without tiles the triangles are drawn as they are clipped, which is raster time, not clip time
+            transformNanos += transformed - start;
+            clipNanos += (System.nanoTime() - transformed) - (stats.drawNanos - drawnBefore);
+        }
+    }
+
+    // Writes the view-space position (or, with a null origin, direction) of each vector into reused buffer entries.
+    private static Float3[] toView(Float3[] vectors, Float3[] buffer, Float3 origin, Float3[] invBasis) {
+        if (buffer.length < vectors.length) {
+            int oldLength = buffer.length;
+            buffer = Arrays.copyOf(buffer, vectors.length);
+            for (int i = oldLength; i < buffer.length; i++) {
+                buffer[i] = new Float3();
+            }
+        }
+        Float3 iHat = invBasis[0];
+        Float3 jHat = invBasis[1];
+        Float3 kHat = invBasis[2];
+        for (int i = 0; i < vectors.length; i++) {
+            Float3 v = vectors[i];
+            float x = (origin == null) ? v.x : v.x - origin.x;
+            float y = (origin == null) ? v.y : v.y - origin.y;
+            float z = (origin == null) ? v.z : v.z - origin.z;
+            buffer[i].set(
+                    (iHat.x * x) + (jHat.x * y) + (kHat.x * z),
+                    (iHat.y * x) + (jHat.y * y) + (kHat.y * z),
+                    (iHat.z * x) + (jHat.z * y) + (kHat.z * z));
+        }
+        return buffer;
+    }
+
+    private void renderTriangle(Float3[] tri, float zScale, Float3[] worldTri, Float3 worldNormal, Model model, Material mat, int oi, int ti, boolean tiled) {
+        boolean clipA = (tri[0].z <= NEAR_CLIP_DST);
+        boolean clipB = (tri[1].z <= NEAR_CLIP_DST);
+        boolean clipC = (tri[2].z <= NEAR_CLIP_DST);
+        int clipCount = Maths.boolToInt(clipA) + Maths.boolToInt(clipB) + Maths.boolToInt(clipC);
+
+        switch (clipCount) {
+            case 0:
+                emitClipped(tri[0], tri[1], tri[2], STANDARD_WEIGHTS, zScale, worldTri, worldNormal, model, mat, oi, ti, tiled);
+                break;
+            case 1:
+                int clipIndex = (clipA ? 0 : (clipB ? 1 : 2));
+                int nextI = (clipIndex + 1) % 3;
+                int prevI = (clipIndex + 2) % 3;
+                Float3 clippedP = tri[clipIndex];
+                Float3 A = tri[nextI];
+                Float3 B = tri[prevI];
+
+                float fracA = (NEAR_CLIP_DST - clippedP.z) / (A.z - clippedP.z);
+                float fracB = (NEAR_CLIP_DST - clippedP.z) / (B.z - clippedP.z);
+                Float3 clipPointA = clippedP.lerp(A, fracA);
+                Float3 clipPointB = clippedP.lerp(B, fracB);
+
+                Float3 weightA = STANDARD_WEIGHTS[clipIndex].lerp(STANDARD_WEIGHTS[nextI], fracA);
+                Float3 weightB = STANDARD_WEIGHTS[clipIndex].lerp(STANDARD_WEIGHTS[prevI], fracB);
+                Float3[] weights1 = new Float3[]{STANDARD_WEIGHTS[nextI], STANDARD_WEIGHTS[prevI], weightB};
+                Float3[] weights2 = new Float3[]{STANDARD_WEIGHTS[nextI], weightA, weightB};
+
+                emitClipped(A, B, clipPointB, weights1, zScale, worldTri, worldNormal, model, mat, oi, ti, tiled);
+                emitClipped(A, clipPointA, clipPointB, weights2, zScale, worldTri, worldNormal, model, mat, oi, ti, tiled);
+                break;
+            case 2:
+                int nonClipI = ((!clipA) ? 0 : ((!clipB) ? 1 : 2));
+                int clipIA = (nonClipI + 1) % 3;
+                int clipIB = (nonClipI + 2) % 3;
+                Float3 P = tri[nonClipI];
+                Float3 clippedA = tri[clipIA];
+                Float3 clippedB = tri[clipIB];
+
+                float fracX = (NEAR_CLIP_DST - P.z) / (clippedA.z - P.z);
+                float fracY = (NEAR_CLIP_DST - P.z) / (clippedB.z - P.z);
+                Float3 clipPointX = P.lerp(clippedA, fracX);
+                Float3 clipPointY = P.lerp(clippedB, fracY);
+
+                Float3 weightX = STANDARD_WEIGHTS[nonClipI].lerp(STANDARD_WEIGHTS[clipIA], fracX);
+                Float3 weightY = STANDARD_WEIGHTS[nonClipI].lerp(STANDARD_WEIGHTS[clipIB], fracY);
+                Float3[] weights = new Float3[]{STANDARD_WEIGHTS[nonClipI], weightX, weightY};
+
+                emitClipped(P, clipPointX, clipPointY, weights, zScale, worldTri, worldNormal, model, mat, oi, ti, tiled);
+                break;
+            default:
+                break;
+        }
+    }
+    // Triangles reaching past the guard band, which only happens very close to the camera, are clipped against it
+    // in view space so the edge math stays inside long range; every other triangle is projected as is.
+    private void emitClipped(Float3 A, Float3 B, Float3 C, Float3[] weights, float zScale, Float3[] worldTri, Float3 worldNormal, Model model, Material mat, int oi, int ti, boolean tiled) {
+        Float3[] screenTri = triToScreen(A, B, C, zScale);
+        if (insideGuardBand(screenTri)) {
+            emitTriangle(screenTri, weights, worldTri, worldNormal, model, mat, oi, ti, tiled);
+            return;
+        }
+
+        Float3[] polygon = new Float3[]{A, B, C};
+        Float3[] polygonWeights = weights;
+        int count = 3;
+        for (int plane = 0; plane < 4 && count >= 3; plane++) {
+            Float3[] clipped = new Float3[count + 1];
+            Float3[] clippedWeights = new Float3[count + 1];
+            int clippedCount = 0;
+            for (int i = 0; i < count; i++) {
+                int next = (i + 1) % count;
+                float dist = guardDistance(polygon[i], plane, zScale);
+                float nextDist = guardDistance(polygon[next], plane, zScale);
+                if (dist >= 0f) {
+                    clipped[clippedCount] = polygon[i];
+                    clippedWeights[clippedCount++] = polygonWeights[i];
+                }
+                if ((dist >= 0f) != (nextDist >= 0f)) {
+                    float frac = dist / (dist - nextDist);
+                    clipped[clippedCount] = polygon[i].lerp(polygon[next], frac);
+                    clippedWeights[clippedCount++] = polygonWeights[i].lerp(polygonWeights[next], frac);
+                }
+            }
+            polygon = clipped;
+            polygonWeights = clippedWeights;
+            count = clippedCount;
+        }
+        for (int i = 1; i < count - 1; i++) {
+            emitTriangle(triToScreen(polygon[0], polygon[i], polygon[i + 1], zScale),
+                    new Float3[]{polygonWeights[0], polygonWeights[i], polygonWeights[i + 1]}, worldTri, worldNormal, model, mat, oi, ti, tiled);
+        }
+    }
+    private static boolean insideGuardBand(Float3[] screenTri) {
+        for (Float3 v : screenTri) {
+            if (!(Math.abs(v.x) < GUARD_BAND && Math.abs(v.y) < GUARD_BAND)) return false;
+        }
+        return true;
+    }
+    // Signed distance of a view-space point (z > 0) to one of the four guard band planes through the eye,
+    // positive inside. The planes sit at half the guard band so clipped points project well within it.
+    private float guardDistance(Float3 v, int plane, float zScale) {
+        float guard = GUARD_BAND * .5f;
+        switch (plane) {
+            case 0:
+                return (v.x * zScale) + ((guard - (screenRes.x * .5f)) * v.z);
+            case 1:
+                return ((guard + (screenRes.x * .5f)) * v.z) - (v.x * zScale);
+            case 2:
+                return (v.y * zScale) + ((guard - (screenRes.y * .5f)) * v.z);
+            default:
+                return ((guard + (screenRes.y * .5f)) * v.z) - (v.y * zScale);
+        }
+    }
+    private void emitTriangle(Float3[] tri, Float3[] triWeights, Float3[] worldTri, Float3 worldNormal, Model model, Material mat, int oi, int ti, boolean tiled) {
+        ScreenTriangle screenTri = new ScreenTriangle(tri, triWeights, worldTri, worldNormal, model, mat, oi, ti, target);
+        if (screenTri.startX >= screenTri.endX || screenTri.startY >= screenTri.endY) return;
+
+        triangleCount++;
+        int index = screenTriangles.size();
+        if (!tiled) {
+            if (deferredFrame) screenTriangles.add(screenTri);
+            long start = profile ? System.nanoTime() : 0L;
+            drawTriangle(screenTri, index, 0, 0, target.width, target.height, span, row, stats);
+            if (profile) stats.drawNanos += System.nanoTime() - start;
+            return;
+        }
+
+        screenTriangles.add(screenTri);
+        int firstTileX = screenTri.startX / TILE_SIZE;
+        int firstTileY = screenTri.startY / TILE_SIZE;
+        int lastTileX = (screenTri.endX - 1) / TILE_SIZE;
+        int lastTileY = (screenTri.endY - 1) / TILE_SIZE;
+        for (int tileY = firstTileY; tileY <= lastTileY; tileY++) {
+            for (int tileX = firstTileX; tileX <= lastTileX; tileX++) {
+                tileBins[(tileY * tilesX) + tileX].add(index);
+            }
+        }
+    }
+
+    private void renderTiles() {
+        if (workers == null || workerCount != renderThreads) {
+            if (workers != null) workers.shutdown();
+            workerCount = renderThreads;
+            workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+                Thread thread = new Thread(runnable, "render-worker");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        nextTile.set(0);
+        List<Callable<Void>> tasks = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            tasks.add(() -> {
+                ShadeSpan tileSpan = new ShadeSpan(TILE_SIZE);
+                tileSpan.colorScaler = kernel;
+                tileSpan.setFrame(frame.dirToSun, frame.envLight, frame.time);
+                RowCoverage tileRow = new RowCoverage();
+                RenderStats tileStats = new RenderStats();
+                int tile;
+                while ((tile = nextTile.getAndIncrement()) < tileBins.length) {
+                    long start = profile ? System.nanoTime() : 0L;
+                    renderTile(tile, tileSpan, tileRow, tileStats);
+                    if (profile) tileStats.drawNanos += System.nanoTime() - start;
+                }
+                synchronized (stats) {
+                    stats.add(tileStats);
+                }
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> future : workers.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.getCause().printStackTrace();
+        }
+
+        screenTriangles.clear();
+        for (TileBin bin : tileBins) {
+            bin.clear();
+        }
+    }
+    private void renderTile(int tile, ShadeSpan span, RowCoverage row, RenderStats stats) {
+        int minX = (tile % tilesX) * TILE_SIZE;
+        int minY = (tile / tilesX) * TILE_SIZE;
+        int maxX = Math.min(minX + TILE_SIZE, target.width);
+        int maxY = Math.min(minY + TILE_SIZE, target.height);
+
+        TileBin bin = tileBins[tile];
+        for (int i = 0; i < bin.count; i++) {
+            int id = bin.triangles[i];
+            drawTriangle(screenTriangles.get(id), id, minX, minY, maxX, maxY, span, row, stats);
+        }
+        if (deferredFrame) {
+            shadeVisible(minX, minY, maxX, maxY, span, stats);
+        }
+    }
+
+    // Second pass of deferred shading: every pixel still owned by a deferred triangle is shaded exactly once,
+    // with each run of neighbouring pixels from the same triangle shaded as one span.
+    private void shadeVisible(int minX, int minY, int maxX, int maxY, ShadeSpan span, RenderStats stats) {
+        for (int y = minY; y < maxY; y++) {
+            int index = (y * target.width) + minX;
+            int spanId = -1;
+            ScreenTriangle tri = null;
+            for (int x = minX; x < maxX; x++, index++) {
+                int id = visTriangle[index];
+                if (id != spanId) {
+                    if (tri != null) writeSpan(span, tri, stats);
+                    spanId = id;
+                    tri = null;
+                    if (id >= 0) {
+                        tri = screenTriangles.get(id);
+                        span.begin(y, y * invResY, tri.mat, tri.u0, tri.v0, tri.u1, tri.v1, tri.u2, tri.v2, tri.worldTri, tri.worldNormal, tri.object, tri.triangle);
+                    }
+                }
+                if (id < 0) continue;
+                visTriangle[index] = -1;
+
+                float depth = target.depthBuffer[index];
+                int i = span.add(x, index, x * invResX, visWeightA[index], visWeightB[index], visWeightC[index], depth);
+                span.mipLevel[i] = tri.mipLevel(span.texU[i], span.texV[i], depth);
+            }
+            if (tri != null) writeSpan(span, tri, stats);
+        }
+    }
+
+    // Shades a span and resolves it into the target: discards, shader status and overdraw are applied here.
+    private void writeSpan(ShadeSpan span, ScreenTriangle tri, RenderStats stats) {
+        Shader shader = shaderOverride ? frame.cameraShader : tri.mat.shader;
+        stats.shadedFragments += span.count;
+        if (shader != null) {
+            long start = profile ? System.nanoTime() : 0L;
+            shader.shadeSpan(span);
+            if (profile) stats.shadeNanos += System.nanoTime() - start;
+        } else {
+            Arrays.fill(span.colors, 0, span.count, MISSING_SHADER_COLOR);
+        }
+
+        int[] colorBuffer = target.colorBuffer;
+        float[] depthBuffer = target.depthBuffer;
+        for (int i = 0; i < span.count; i++) {
+            int index = span.index[i];
+            int color = span.colors[i];
+            if (shader != null) {
+                if (shaderStatus) {
+                    color = ((color == ShadeSpan.DISCARD) ? SHADER_DISCARD : SHADER_RETURN).getColor();
+                } else if (color == ShadeSpan.DISCARD) {
+                    continue;
+                }
+            }
+
+            float depth = span.depth[i];
+            if (depthBuffer[index] == Float.MAX_VALUE) stats.coveredPixels++;
+            if (showOverdraw) {
+                depth = depthBuffer[index];
+                if (depth == Float.MAX_VALUE) {
+                    depth = 1f;
+                } else {
+                    depth += 1f;
+                }
+                color = (depth > OVERDRAW_LIMIT) ? OVER_OVERDRAW_COLOR.getColor() : grey(depth * (1f / OVERDRAW_LIMIT));
+            }
+            colorBuffer[index] = color;
+            depthBuffer[index] = depth;
+            if (deferredFrame) visTriangle[index] = -1;
+        }
+        span.count = 0;
+    }
+
+    // In a deferred frame, triangles whose shader cannot discard only write depth and the visibility buffer here;
+    // shaders that may discard still run immediately so that a discarded fragment never hides what is behind it.
+    private void drawTriangle(ScreenTriangle tri, int id, int minX, int minY, int maxX, int maxY, ShadeSpan span, RowCoverage row, RenderStats stats) {
+        int startX = Math.max(tri.startX, minX);
+        int startY = Math.max(tri.startY, minY);
+        int endX = Math.min(tri.endX, maxX);
+        int endY = Math.min(tri.endY, maxY);
+        if (startX >= endX || startY >= endY) return;
+
+        Material mat = tri.mat;
+        Shader shader = shaderOverride ? frame.cameraShader : mat.shader;
+        boolean deferTriangle = deferredFrame && (shader != null) && !shader.canDiscard();
+        float[] depthBuffer = target.depthBuffer;
+        int width = target.width;
+
+        long px = (long) startX << SUBPIXEL_BITS;
+        long py = (long) startY << SUBPIXEL_BITS;
+        long rowA = (tri.edgeAX * px) + (tri.edgeAY * py) + tri.edgeAC;
+        long rowB = (tri.edgeBX * px) + (tri.edgeBY * py) + tri.edgeBC;
+        long rowC = (tri.edgeCX * px) + (tri.edgeCY * py) + tri.edgeCC;
+        long stepYA = tri.edgeAY << SUBPIXEL_BITS;
+        long stepYB = tri.edgeBY << SUBPIXEL_BITS;
+        long stepYC = tri.edgeCY << SUBPIXEL_BITS;
+
+        PixelKernel kernel = this.kernel;
+        for (int y = startY; y < endY; y++) {
+            int rowIndex = (y * width) + startX;
+            int covered = kernel.coverRow(tri, rowA, rowB, rowC, endX - startX, depthBuffer, rowIndex, !showOverdraw, row);
+            rowA += stepYA;
+            rowB += stepYB;
+            rowC += stepYC;
+            if (covered == 0) continue;
+            stats.fragments += covered;
+
+            if (deferTriangle) {
+                for (int k = 0; k < covered; k++) {
+                    int index = rowIndex + row.x[k];
+                    visTriangle[index] = id;
+                    visWeightA[index] = row.weightA[k];
+                    visWeightB[index] = row.weightB[k];
+                    visWeightC[index] = row.weightC[k];
+                    if (depthBuffer[index] == Float.MAX_VALUE) stats.coveredPixels++;
+                    depthBuffer[index] = row.depth[k];
+                }
+                continue;
+            }
+
+            span.begin(y, y * invResY, mat, tri.u0, tri.v0, tri.u1, tri.v1, tri.u2, tri.v2, tri.worldTri, tri.worldNormal, tri.object, tri.triangle);
+            for (int k = 0; k < covered; k++) {
+                int x = startX + row.x[k];
+                float depth = row.depth[k];
+                int i = span.add(x, rowIndex + row.x[k], x * invResX, row.weightA[k], row.weightB[k], row.weightC[k], depth);
+                span.mipLevel[i] = tri.mipLevel(span.texU[i], span.texV[i], depth);
+            }
+            writeSpan(span, tri, stats);
+        }
+    }
+    private static int grey(float v) {
+        int g = (int) (v * 255);
+        return ((g << 16) | (g << 8) | g);
+    }
+    private Float3[] triToScreen(Float3 A, Float3 B, Float3 C, float zScale) {
+        return Maths.triToScreen(A, B, C, screenRes, zScale);
+    }
+    private Float3[] triToScreen(Float3[] tri, float zScale) {
+        return triToScreen(tri[0], tri[1], tri[2], zScale);
+    }
+
+    // Edge functions are evaluated in fixed point with SUBPIXEL_BITS of sub-pixel precision. Vertices are
+    // ordered so every edge function is positive inside the triangle; biasA-C implement the top-left rule.
+    static class ScreenTriangle {
+        long edgeAX, edgeAY, edgeAC, biasA;
+        long edgeBX, edgeBY, edgeBC, biasB;
+        long edgeCX, edgeCY, edgeCC, biasC;
+        long stepXA, stepXB, stepXC;
+        float invArea;
+        float invDepthA, invDepthB, invDepthC;
+        float weightAX, weightAY, weightAZ;
+        float weightBX, weightBY, weightBZ;
+        float weightCX, weightCY, weightCZ;
+        float texWidth, texHeight;
+        float uGradX, uGradY, vGradX, vGradY, izGradX, izGradY;
+        final Float3[] worldTri;
+        final Float3 worldNormal;
+        // texture coordinates of the model triangle's corners, read from the model without adapters
+        final float u0, v0, u1, v1, u2, v2;
+        final Material mat;
+        final int object;
+        final int triangle;
+        int startX;
+        int startY;
+        int endX;
+        int endY;
+
+        private ScreenTriangle(Float3[] tri, Float3[] weights, Float3[] worldTri, Float3 worldNormal, Model model, Material mat, int oi, int ti, RenderTarget target) {
+            this.worldTri = worldTri;
+            this.worldNormal = worldNormal;
+            u0 = model.getU(model.getTriUVIndex(ti, 0));
+            v0 = model.getV(model.getTriUVIndex(ti, 0));
+            u1 = model.getU(model.getTriUVIndex(ti, 1));
+            v1 = model.getV(model.getTriUVIndex(ti, 1));
+            u2 = model.getU(model.getTriUVIndex(ti, 2));
+            v2 = model.getV(model.getTriUVIndex(ti, 2));
+            this.mat = mat;
+            this.object = oi;
+            this.triangle = ti;
+
+            if (!insideGuardBand(tri)) return;
+            long x0 = Math.round(tri[0].x * SUBPIXEL_SCALE);
+            long y0 = Math.round(tri[0].y * SUBPIXEL_SCALE);
+            long x1 = Math.round(tri[1].x * SUBPIXEL_SCALE);
+            long y1 = Math.round(tri[1].y * SUBPIXEL_SCALE);
+            long x2 = Math.round(tri[2].x * SUBPIXEL_SCALE);
+            long y2 = Math.round(tri[2].y * SUBPIXEL_SCALE);
+            long area = ((x1 - x0) * (y2 - y0)) - ((y1 - y0) * (x2 - x0));
+            if (area == 0L) return;
+
+            int i1 = 1;
+            int i2 = 2;
+            if (area < 0L) {
+                long t = x1; x1 = x2; x2 = t;
+                t = y1; y1 = y2; y2 = t;
+                i1 = 2;
+                i2 = 1;
+                area = -area;
+            }
+            invArea = 1f / area;
+
+            edgeAX = y1 - y2; edgeAY = x2 - x1; edgeAC = (x1 * y2) - (y1 * x2); biasA = topLeftBias(x1, y1, x2, y2);
+            edgeBX = y2 - y0; edgeBY = x0 - x2; edgeBC = (x2 * y0) - (y2 * x0); biasB = topLeftBias(x2, y2, x0, y0);
+            edgeCX = y0 - y1; edgeCY = x1 - x0; edgeCC = (x0 * y1) - (y0 * x1); biasC = topLeftBias(x0, y0, x1, y1);
+            stepXA = edgeAX << SUBPIXEL_BITS;
+            stepXB = edgeBX << SUBPIXEL_BITS;
+            stepXC = edgeCX << SUBPIXEL_BITS;
+
+            invDepthA = 1f / tri[0].z;
+            invDepthB = 1f / tri[i1].z;
+            invDepthC = 1f / tri[i2].z;
+            weightAX = weights[0].x * invDepthA; weightAY = weights[0].y * invDepthA; weightAZ = weights[0].z * invDepthA;
+            weightBX = weights[i1].x * invDepthB; weightBY = weights[i1].y * invDepthB; weightBZ = weights[i1].z * invDepthB;
+            weightCX = weights[i2].x * invDepthC; weightCY = weights[i2].y * invDepthC; weightCZ = weights[i2].z * invDepthC;
+
+            // Screen-space gradients of u/z, v/z (in texels) and 1/z per pixel step, used for mip selection.
+            Texture tex = (mat.tex == null) ? Scene.errorMat.tex : mat.tex;
+            texWidth = tex.width;
+            texHeight = tex.height;
+            float texScaleU = mat.scale.x * texWidth;
+            float texScaleV = mat.scale.y * texHeight;
+            float uA = texCoord(weights[0], u0, u1, u2) * texScaleU * invDepthA;
+            float uB = texCoord(weights[i1], u0, u1, u2) * texScaleU * invDepthB;
+            float uC = texCoord(weights[i2], u0, u1, u2) * texScaleU * invDepthC;
+            float vA = texCoord(weights[0], v0, v1, v2) * texScaleV * invDepthA;
+            float vB = texCoord(weights[i1], v0, v1, v2) * texScaleV * invDepthB;
+            float vC = texCoord(weights[i2], v0, v1, v2) * texScaleV * invDepthC;
+            float pixelStep = SUBPIXEL_SCALE * invArea;
+            uGradX = pixelStep * ((edgeAX * uA) + (edgeBX * uB) + (edgeCX * uC));
+            uGradY = pixelStep * ((edgeAY * uA) + (edgeBY * uB) + (edgeCY * uC));
+            vGradX = pixelStep * ((edgeAX * vA) + (edgeBX * vB) + (edgeCX * vC));
+            vGradY = pixelStep * ((edgeAY * vA) + (edgeBY * vB) + (edgeCY * vC));
+            izGradX = pixelStep * ((edgeAX * invDepthA) + (edgeBX * invDepthB) + (edgeCX * invDepthC));
+            izGradY = pixelStep * ((edgeAY * invDepthA) + (edgeBY * invDepthB) + (edgeCY * invDepthC));
+
+            startX = Math.max(0, (int) (Math.min(Math.min(x0, x1), x2) >> SUBPIXEL_BITS));
+            startY = Math.max(0, (int) (Math.min(Math.min(y0, y1), y2) >> SUBPIXEL_BITS));
+            endX = Math.min(target.width, (int) (Math.max(Math.max(x0, x1), x2) >> SUBPIXEL_BITS) + 1);
+            endY = Math.min(target.height, (int) (Math.max(Math.max(y0, y1), y2) >> SUBPIXEL_BITS) + 1);
+        }
+
+        private static float texCoord(Float3 weights, float a, float b, float c) {
+            return (weights.x * a) + (weights.y * b) + (weights.z * c);
+        }
+
+        // Nearest mip level for the texel footprint of one pixel, from the quotient rule on (u/z) / (1/z).
+        int mipLevel(float texU, float texV, float depth) {
+            float u = texU * texWidth;
+            float v = texV * texHeight;
+            float dudx = (uGradX - (u * izGradX)) * depth;
+            float dvdx = (vGradX - (v * izGradX)) * depth;
+            float dudy = (uGradY - (u * izGradY)) * depth;
+            float dvdy = (vGradY - (v * izGradY)) * depth;
+            float footprint = Math.max((dudx * dudx) + (dvdx * dvdx), (dudy * dudy) + (dvdy * dvdy));
+            // round(log2(sqrt(footprint))) straight from the float exponent
+            return Math.max(0, Math.getExponent(footprint * 2f) >> 1);
+        }
+
+        private static long topLeftBias(long xFrom, long yFrom, long xTo, long yTo) {
+            long dx = xTo - xFrom;
+            long dy = yTo - yFrom;
+            return ((dy < 0L) || ((dy == 0L) && (dx > 0L))) ? 0L : -1L;
+        }
+    }
+
+    private static class TileBin {
+        private int[] triangles = new int[64];
+        private int count;
+
+        private void add(int triangle) {
+            if (count == triangles.length) {
+                triangles = Arrays.copyOf(triangles, count * 2);
+            }
+            triangles[count++] = triangle;
+        }
+        private void clear() {
+            count = 0;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package game_engine.render;
+
+// Pixels of one triangle row that passed coverage and depth, as offsets from the row start with their depth
+// and perspective-correct weights. Arrays carry a few spare lanes so vector kernels can store whole vectors.
+class RowCoverage {
+    private static final int SPARE_LANES = 16;
+
+    int[] x = new int[0];
+    float[] depth = new float[0];
+    float[] weightA = new float[0];
+    float[] weightB = new float[0];
+    float[] weightC = new float[0];
+
+    void ensureCapacity(int count) {
+        int capacity = count + SPARE_LANES;
+        if (x.length < capacity) {
+            x = new int[capacity];
+            depth = new float[capacity];
+            weightA = new float[capacity];
+            weightB = new float[capacity];
+            weightC = new float[capacity];
+        }
+    }
+}
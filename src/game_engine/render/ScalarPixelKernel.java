@@ -0,0 +1,50 @@
+package game_engine.render;
+
+import game_engine.material.shader.ShadeSpan;
+
+final class ScalarPixelKernel extends PixelKernel {
+    @Override
+    public String name() {
+        return "scalar";
+    }
+    @Override
+    public int lanes() {
+        return 1;
+    }
+
+    @Override
+    int coverRow(Renderer.ScreenTriangle tri, long eA, long eB, long eC, int count,
+                 float[] depthBuffer, int index, boolean depthTest, RowCoverage out) {
+        out.ensureCapacity(count);
+        return cover(tri, eA, eB, eC, 0, count, depthBuffer, index, depthTest, out, 0);
+    }
+    // Covers pixels [from, count) of a row; eA/eB/eC and index are the values at pixel `from`.
+    static int cover(Renderer.ScreenTriangle tri, long eA, long eB, long eC, int from, int count,
+                     float[] depthBuffer, int index, boolean depthTest, RowCoverage out, int covered) {
+        for (int i = from; i < count; i++, index++, eA += tri.stepXA, eB += tri.stepXB, eC += tri.stepXC) {
+            if (((eA + tri.biasA) | (eB + tri.biasB) | (eC + tri.biasC)) < 0L) continue;
+
+            float baryA = eA * tri.invArea;
+            float baryB = eB * tri.invArea;
+            float baryC = eC * tri.invArea;
+            float depth = 1f / ((baryA * tri.invDepthA) + (baryB * tri.invDepthB) + (baryC * tri.invDepthC));
+            if (depthTest && !(depth < depthBuffer[index])) continue;
+
+            float pA = baryA * depth;
+            float pB = baryB * depth;
+            float pC = baryC * depth;
+            out.x[covered] = i;
+            out.depth[covered] = depth;
+            out.weightA[covered] = (tri.weightAX * pA) + (tri.weightBX * pB) + (tri.weightCX * pC);
+            out.weightB[covered] = (tri.weightAY * pA) + (tri.weightBY * pB) + (tri.weightCY * pC);
+            out.weightC[covered] = (tri.weightAZ * pA) + (tri.weightBZ * pB) + (tri.weightCZ * pC);
+            covered++;
+        }
+        return covered;
+    }
+
+    @Override
+    public void scaleColors(int[] colors, int count, float scale) {
+        ShadeSpan.scaleColors(colors, 0, count, scale);
+    }
+}
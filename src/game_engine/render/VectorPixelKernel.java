@@ -0,0 +1,108 @@
+package game_engine.render;
+
+import game_engine.material.shader.ShadeSpan;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+// Edge functions stay in 64-bit lanes so coverage is exact; each long lane is converted to a float lane of the
+// same index and the depth and weight math runs in the same operation order as the scalar kernel.
+final class VectorPixelKernel extends PixelKernel {
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Float> FLOATS =
+            VectorSpecies.of(float.class, VectorShape.forBitSize(LONGS.vectorBitSize() / 2));
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Float> CHANNELS = FloatVector.SPECIES_PREFERRED;
+    private static final int LANES = LONGS.length();
+    private static final LongVector LANE_INDEX = LongVector.zero(LONGS).addIndex(1);
+
+    @Override
+    public String name() {
+        return "vector";
+    }
+    @Override
+    public int lanes() {
+        return LANES;
+    }
+
+    // Whole vectors only: the last partial vector of a row goes through the scalar loop, which is both
+    // cheaper than masked loads and trivially identical.
+    @Override
+    int coverRow(Renderer.ScreenTriangle tri, long eA, long eB, long eC, int count,
+                 float[] depthBuffer, int index, boolean depthTest, RowCoverage out) {
+        out.ensureCapacity(count);
+        LongVector laneA = LANE_INDEX.mul(tri.stepXA).add(eA);
+        LongVector laneB = LANE_INDEX.mul(tri.stepXB).add(eB);
+        LongVector laneC = LANE_INDEX.mul(tri.stepXC).add(eC);
+        long stepA = tri.stepXA * LANES;
+        long stepB = tri.stepXB * LANES;
+        long stepC = tri.stepXC * LANES;
+
+        int covered = 0;
+        int base = 0;
+        for (; base + LANES <= count; base += LANES,
+                laneA = laneA.add(stepA), laneB = laneB.add(stepB), laneC = laneC.add(stepC)) {
+            VectorMask<Long> inside = laneA.add(tri.biasA).or(laneB.add(tri.biasB)).or(laneC.add(tri.biasC))
+                    .compare(VectorOperators.GE, 0L);
+            if (!inside.anyTrue()) continue;
+
+            FloatVector baryA = ((FloatVector) laneA.convertShape(VectorOperators.L2F, FLOATS, 0)).mul(tri.invArea);
+            FloatVector baryB = ((FloatVector) laneB.convertShape(VectorOperators.L2F, FLOATS, 0)).mul(tri.invArea);
+            FloatVector baryC = ((FloatVector) laneC.convertShape(VectorOperators.L2F, FLOATS, 0)).mul(tri.invArea);
+            FloatVector depth = FloatVector.broadcast(FLOATS, 1f)
+                    .div(baryA.mul(tri.invDepthA).add(baryB.mul(tri.invDepthB)).add(baryC.mul(tri.invDepthC)));
+            VectorMask<Float> keep = inside.cast(FLOATS);
+            if (depthTest) {
+                keep = keep.and(depth.compare(VectorOperators.LT, FloatVector.fromArray(FLOATS, depthBuffer, index + base)));
+                if (!keep.anyTrue()) continue;
+            }
+
+            FloatVector pA = baryA.mul(depth);
+            FloatVector pB = baryB.mul(depth);
+            FloatVector pC = baryC.mul(depth);
+            depth.intoArray(out.depth, covered);
+            pA.mul(tri.weightAX).add(pB.mul(tri.weightBX)).add(pC.mul(tri.weightCX)).intoArray(out.weightA, covered);
+            pA.mul(tri.weightAY).add(pB.mul(tri.weightBY)).add(pC.mul(tri.weightCY)).intoArray(out.weightB, covered);
+            pA.mul(tri.weightAZ).add(pB.mul(tri.weightBZ)).add(pC.mul(tri.weightCZ)).intoArray(out.weightC, covered);
+
+            // compact the kept lanes to the front; lanes only ever move left
+            long lanes = keep.toLong();
+            int start = covered;
+            while (lanes != 0L) {
+                int lane = Long.numberOfTrailingZeros(lanes);
+                lanes &= lanes - 1L;
+                int from = start + lane;
+                out.x[covered] = base + lane;
+                out.depth[covered] = out.depth[from];
+                out.weightA[covered] = out.weightA[from];
+                out.weightB[covered] = out.weightB[from];
+                out.weightC[covered] = out.weightC[from];
+                covered++;
+            }
+        }
+        return ScalarPixelKernel.cover(tri, eA + (tri.stepXA * base), eB + (tri.stepXB * base), eC + (tri.stepXC * base),
+                base, count, depthBuffer, index + base, depthTest, out, covered);
+    }
+
+    @Override
+    public void scaleColors(int[] colors, int count, float scale) {
+        int i = 0;
+        for (; i + INTS.length() <= count; i += INTS.length()) {
+            IntVector rgb = IntVector.fromArray(INTS, colors, i);
+            IntVector r = scaleChannel(rgb.lanewise(VectorOperators.LSHR, 16).and(0xff), scale);
+            IntVector g = scaleChannel(rgb.lanewise(VectorOperators.LSHR, 8).and(0xff), scale);
+            IntVector b = scaleChannel(rgb.and(0xff), scale);
+            r.lanewise(VectorOperators.LSHL, 16).or(g.lanewise(VectorOperators.LSHL, 8)).or(b).intoArray(colors, i);
+        }
+        ShadeSpan.scaleColors(colors, i, count, scale);
+    }
+    private static IntVector scaleChannel(IntVector channel, float scale) {
+        FloatVector value = ((FloatVector) channel.convertShape(VectorOperators.I2F, CHANNELS, 0)).div(255f).mul(scale).mul(255f);
+        return (IntVector) value.convertShape(VectorOperators.F2I, INTS, 0);
+    }
+}
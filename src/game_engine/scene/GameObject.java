@@ -13,6 +13,18 @@ public class GameObject {
     public Material mat;
     public Script script;
     public String modelKey;
+
+    private Model cachedModel;
+    private Float3[] worldVertexes;
+    private Float3[] worldNormals;
+    private Float3 worldBoundsCenter;
+    private float worldBoundsRadius;
+    private Float3 worldBoundsMin;
+    private Float3 worldBoundsMax;
+    private int worldVersion;
+    private Float3[] cachedBasis;
+    private float cachedPosX, cachedPosY, cachedPosZ;
+    private float cachedScaleX, cachedScaleY, cachedScaleZ;
     public GameObject(String name, String model, float xP, float yP, float zP, float pR, float yR, float rR, float xS, float yS, float zS, Material mat, Script script) {
         this.active = true;
         this.name = name;
@@ -46,18 +58,117 @@ public class GameObject {
         return getModel().triangleCount();
     }
     public Float3[] getTriVertexes(int i) {
-        return Maths.transformTri(getModel().getTriVertexes(i), transform);
+        Model model = updateWorldCache();
+        Float3[] world = worldVertexes;
+        return new Float3[]{world[model.getTriVertexIndex(i, 0)], world[model.getTriVertexIndex(i, 1)], world[model.getTriVertexIndex(i, 2)]};
     }
     public Float2[] getTriUVs(int i) {
         return getModel().getTriUVs(i);
     }
     public Float3 getTriNormal(int i) {
-        return Maths.rotate(getModel().getTriNormal(i), transform);
+        Model model = updateWorldCache();
+        return worldNormals[model.getTriNormalIndex(i)];
+    }
+
+    // World-space copies of the model's vertexes, normals and bounds. They are only recomputed when the model or the
+    // transform changed, and are replaced rather than overwritten so arrays handed out earlier stay valid.
+    public Float3[] getWorldVertexes() {
+        updateWorldCache();
+        return worldVertexes;
+    }
+    public Float3[] getWorldNormals() {
+        updateWorldCache();
+        return worldNormals;
+    }
+    public Float3 getWorldBoundsCenter() {
+        updateWorldCache();
+        return worldBoundsCenter;
+    }
+    public float getWorldBoundsRadius() {
+        updateWorldCache();
+        return worldBoundsRadius;
+    }
+    public Float3 getWorldBoundsMin() {
+        updateWorldCache();
+        return worldBoundsMin;
+    }
+    public Float3 getWorldBoundsMax() {
+        updateWorldCache();
+        return worldBoundsMax;
+    }
+    public int getWorldVersion() {
+        updateWorldCache();
+        return worldVersion;
+    }
+
+    private Model updateWorldCache() {
+        Model model = getModel();
+        Float3 pos = transform.pos;
+        Float3 scale = transform.scale;
+        if (model == cachedModel && transform.basisVectors == cachedBasis
+                && pos.x == cachedPosX && pos.y == cachedPosY && pos.z == cachedPosZ
+                && scale.x == cachedScaleX && scale.y == cachedScaleY && scale.z == cachedScaleZ) {
+            return model;
+        }
+
+        Float3[] vertexes = new Float3[model.vertexCount()];
+        Float3 min = new Float3(Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE);
+        Float3 max = new Float3(-Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE);
+        for (int i = 0; i < vertexes.length; i++) {
+            Float3 v = Maths.transform(model.getVertexX(i), model.getVertexY(i), model.getVertexZ(i), transform);
+            min.set(Math.min(min.x, v.x), Math.min(min.y, v.y), Math.min(min.z, v.z));
+            max.set(Math.max(max.x, v.x), Math.max(max.y, v.y), Math.max(max.z, v.z));
+            vertexes[i] = v;
+        }
+        if (vertexes.length == 0) {
+            min.set(pos.x, pos.y, pos.z);
+            max.set(pos.x, pos.y, pos.z);
+        }
+        Float3[] normals = new Float3[model.normalCount()];
+        for (int i = 0; i < normals.length; i++) {
+            normals[i] = Maths.rotate(model.getNormalX(i), model.getNormalY(i), model.getNormalZ(i), transform);
+        }
+        worldVertexes = vertexes;
+        worldNormals = normals;
+        worldBoundsCenter = Maths.transform(model.getBoundsCenter(), transform);
+        worldBoundsRadius = model.getBoundsRadius() * Math.max(Math.max(Math.abs(scale.x), Math.abs(scale.y)), Math.abs(scale.z));
+        worldBoundsMin = min;
+        worldBoundsMax = max;
+        worldVersion++;
+
+        cachedModel = model;
+        cachedBasis = transform.basisVectors;
+        cachedPosX = pos.x;
+        cachedPosY = pos.y;
+        cachedPosZ = pos.z;
+        cachedScaleX = scale.x;
+        cachedScaleY = scale.y;
+        cachedScaleZ = scale.z;
+        return model;
     }
 
     public void updateScript() {
         if (script != null) {
+            ScriptUpdateEvent event = new ScriptUpdateEvent();
+            event.begin();
             script.update(this);
+            commitScriptEvent(event, false);
+        }
+    }
+    public void fixedUpdateScript() {
+        if (script != null) {
+            ScriptUpdateEvent event = new ScriptUpdateEvent();
+            event.begin();
+            script.fixedUpdate(this);
+            commitScriptEvent(event, true);
+        }
+    }
+    private void commitScriptEvent(ScriptUpdateEvent event, boolean fixed) {
+        if (event.shouldCommit()) {
+            event.object = name;
+            event.script = script.getClass();
+            event.fixed = fixed;
+            event.commit();
         }
     }
 }
@@ -0,0 +1,36 @@
+package game_engine.scene;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+// Converts an OBJ (or rewrites a mesh file) into the MeshFile format, for assets to be loaded at startup;
+// --optimize stores it in MeshOptimizer's order, so loading needn't reorder it:
+//   java -cp engine/target/classes game_engine.scene.MeshConverter [--optimize] <input.obj|input.mesh> <output.mesh>
+public abstract class MeshConverter {
+    public static void main(String[] args) throws IOException {
+        boolean optimize = (args.length == 3) && args[0].equals("--optimize");
+        if (args.length != (optimize ? 3 : 2)) {
+            System.err.println("usage: MeshConverter [--optimize] <input.obj|input.mesh> <output.mesh>");
+            System.exit(2);
+        }
+        String inputName = args[args.length - 2];
+        Path input = Paths.get(inputName);
+        Path output = Paths.get(args[args.length - 1]);
+
+        long start = System.nanoTime();
+        Model model = inputName.toLowerCase(Locale.ROOT).endsWith(".obj") ? ObjLoader.load(input) : MeshFile.load(input);
+        model.computeBounds();
+        long loaded = System.nanoTime();
+        System.out.println(String.format(Locale.ROOT, "%s: %d triangles, %d vertexes, %d UVs, %d normals, read in %.1f ms",
+                input, model.triangleCount(), model.vertexCount(), model.uvCount(), model.normalCount(), (loaded - start) / 1e6));
+        if (optimize) model = MeshOptimizer.optimize(input.getFileName().toString(), model);
+
+        long writing = System.nanoTime();
+        MeshFile.write(model, output);
+        long written = System.nanoTime();
+        System.out.println(String.format(Locale.ROOT, "%s: %d bytes, written in %.1f ms",
+                output, output.toFile().length(), (written - writing) / 1e6));
+    }
+}
@@ -0,0 +1,147 @@
+package game_engine.scene;
+
+import game_engine.math.Float3;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// Versioned binary mesh container, little-endian:
+//    0  magic "JGEM"
+//    4  int version
+//    8  int vertex, UV, normal and triangle counts
+//   24  int flags, 0
+//   28  float bounds min xyz, max xyz, center xyz, radius
+//   68  zero padding up to HEADER_SIZE
+// followed by the positions, UVs, normals and triangles streams in Model's layout, each starting on a
+// STREAM_ALIGNMENT boundary. load maps the file and gives the Model views of the streams, so nothing is parsed
+// or copied. Only the triangles are read at load, to check every index against the stream counts, so a corrupt
+// or foreign file fails there instead of deep in the renderer; the other streams are paged in as first used.
+// write goes through a temporary file moved over the target, so a model mapped from the target stays valid.
+public abstract class MeshFile {
+    public static final int VERSION = 1;
+    private static final int MAGIC = ('J') | ('G' << 8) | ('E' << 16) | ('M' << 24);
+    private static final int HEADER_SIZE = 80;
+    private static final int STREAM_ALIGNMENT = 16;
+
+    // byte offsets of the four streams and the end of the file, from the counts
+    private static long[] layout(long vertexes, long uvs, long normals, long triangles) {
+        long[] offsets = new long[5];
+        offsets[0] = HEADER_SIZE;
+        offsets[1] = align(offsets[0] + (vertexes * 3L * Float.BYTES));
+        offsets[2] = align(offsets[1] + (uvs * 2L * Float.BYTES));
+        offsets[3] = align(offsets[2] + (normals * 3L * Float.BYTES));
+        offsets[4] = offsets[3] + (triangles * Model.TRIANGLE_INTS * Integer.BYTES);
+        return offsets;
+    }
+    private static long align(long offset) {
+        return (offset + STREAM_ALIGNMENT - 1) & -STREAM_ALIGNMENT;
+    }
+
+    public static void write(Model model, Path path) throws IOException {
+        long[] offsets = layout(model.vertexCount(), model.uvCount(), model.normalCount(), model.triangleCount());
+        if (offsets[4] > Integer.MAX_VALUE) throw new IOException(path + ": mesh too large for one mapped file");
+        Path directory = path.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            write(model, offsets, temp);
+            try {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+    private static void write(Model model, long[] offsets, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer file = channel.map(FileChannel.MapMode.READ_WRITE, 0L, offsets[4]);
+            file.order(ByteOrder.LITTLE_ENDIAN);
+            file.putInt(0, MAGIC);
+            file.putInt(4, VERSION);
+            file.putInt(8, model.vertexCount());
+            file.putInt(12, model.uvCount());
+            file.putInt(16, model.normalCount());
+            file.putInt(20, model.triangleCount());
+            file.putInt(24, 0);
+            Float3[] bounds = {model.getBoundsMin(), model.getBoundsMax(), model.getBoundsCenter()};
+            for (int i = 0; i < bounds.length; i++) {
+                file.putFloat(28 + (i * 12), bounds[i].x);
+                file.putFloat(32 + (i * 12), bounds[i].y);
+                file.putFloat(36 + (i * 12), bounds[i].z);
+            }
+            file.putFloat(64, model.getBoundsRadius());
+
+            stream(file, offsets[0], model.vertexCount() * 3 * Float.BYTES).asFloatBuffer().put(model.positions());
+            stream(file, offsets[1], model.uvCount() * 2 * Float.BYTES).asFloatBuffer().put(model.uvs());
+            stream(file, offsets[2], model.normalCount() * 3 * Float.BYTES).asFloatBuffer().put(model.normals());
+            stream(file, offsets[3], model.triangleCount() * Model.TRIANGLE_INTS * Integer.BYTES).asIntBuffer().put(model.triangles());
+            file.force();
+        }
+    }
+
+    public static Model load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) throw new IOException(path + ": not a mesh file");
+            if (size > Integer.MAX_VALUE) throw new IOException(path + ": mesh too large for one mapped file");
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer file = channel.map(FileChannel.MapMode.READ_ONLY, 0L, size);
+            file.order(ByteOrder.LITTLE_ENDIAN);
+            if (file.getInt(0) != MAGIC) throw new IOException(path + ": not a mesh file");
+            int version = file.getInt(4);
+            if (version < 1 || version > VERSION) {
+                throw new IOException(path + ": mesh file version " + version + ", this build reads up to " + VERSION);
+            }
+            int vertexes = file.getInt(8);
+            int uvs = file.getInt(12);
+            int normals = file.getInt(16);
+            int triangles = file.getInt(20);
+            if (vertexes < 0 || uvs < 0 || normals < 0 || triangles < 0) throw new IOException(path + ": corrupt mesh header");
+            long[] offsets = layout(vertexes, uvs, normals, triangles);
+            if (offsets[4] > size) throw new IOException(path + ": truncated, " + size + " of " + offsets[4] + " bytes");
+
+            FloatBuffer positionStream = stream(file, offsets[0], vertexes * 3 * Float.BYTES).asFloatBuffer();
+            FloatBuffer uvStream = stream(file, offsets[1], uvs * 2 * Float.BYTES).asFloatBuffer();
+            FloatBuffer normalStream = stream(file, offsets[2], normals * 3 * Float.BYTES).asFloatBuffer();
+            IntBuffer triangleStream = stream(file, offsets[3], triangles * Model.TRIANGLE_INTS * Integer.BYTES).asIntBuffer();
+            checkIndexes(path, triangleStream, vertexes, uvs, normals);
+            Model model = new Model(positionStream, uvStream, normalStream, triangleStream);
+            model.setBounds(
+                    new Float3(file.getFloat(28), file.getFloat(32), file.getFloat(36)),
+                    new Float3(file.getFloat(40), file.getFloat(44), file.getFloat(48)),
+                    new Float3(file.getFloat(52), file.getFloat(56), file.getFloat(60)),
+                    file.getFloat(64));
+            return model;
+        }
+    }
+
+    private static void checkIndexes(Path path, IntBuffer triangles, int vertexes, int uvs, int normals) throws IOException {
+        int[] limits = {vertexes, vertexes, vertexes, uvs, uvs, uvs, normals};
+        for (int t = 0; t < triangles.limit(); t += Model.TRIANGLE_INTS) {
+            for (int i = 0; i < Model.TRIANGLE_INTS; i++) {
+                int index = triangles.get(t + i);
+                if (index < 0 || index >= limits[i]) {
+                    throw new IOException(path + ": corrupt mesh, triangle " + (t / Model.TRIANGLE_INTS) + " refers to entry "
+                            + index + " of a stream with " + limits[i]);
+                }
+            }
+        }
+    }
+
+    // slices don't inherit the byte order
+    private static ByteBuffer stream(ByteBuffer file, long offset, int bytes) {
+        return file.slice((int) offset, bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
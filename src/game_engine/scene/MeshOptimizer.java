@@ -0,0 +1,517 @@
+package game_engine.scene;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Locale;
+
+// Reorders a model's triangles and vertex streams without changing what it draws:
+//   1. triangles in Forsyth's order, so each triangle reuses vertexes the ones just before it used,
+//   2. that order cut into clusters where the reuse starts over anyway, and the clusters sorted so parts facing
+//      out from the middle of the mesh are drawn first and hide what is behind them (Sander et al., Tipsify),
+//   3. positions, UVs and normals renumbered in the order the triangles first use them.
+// The renderer has no post-transform cache, but it fetches view and world vertexes by index per triangle, so
+// (1) and (3) keep those fetches local, and (2) lets more fragments fail the depth test before shading.
+// ACMR is measured on a FIFO cache of FIFO_SIZE, overdraw with orthographic views from OVERDRAW_VIEWS directions.
+public abstract class MeshOptimizer {
+    public static final int CACHE_SIZE = 32;
+    public static final int FIFO_SIZE = 16;
+    // how much worse than its cluster's ACMR a split cluster may get; larger trades cache reuse for overdraw
+    public static float overdrawThreshold = 1.05f;
+
+    private static final int OVERDRAW_RESOLUTION = 256;
+    private static final float[][] OVERDRAW_VIEWS;
+    static {
+        OVERDRAW_VIEWS = new float[14][];
+        int view = 0;
+        for (int axis = 0; axis < 3; axis++) {
+            for (int sign = -1; sign <= 1; sign += 2) {
+                float[] d = new float[3];
+                d[axis] = sign;
+                OVERDRAW_VIEWS[view++] = d;
+            }
+        }
+        float k = (float) (1d / Math.sqrt(3d));
+        for (int corner = 0; corner < 8; corner++) {
+            OVERDRAW_VIEWS[view++] = new float[]{((corner & 1) == 0) ? k : -k, ((corner & 2) == 0) ? k : -k, ((corner & 4) == 0) ? k : -k};
+        }
+    }
+
+    public static class Stats {
+        public final int triangles;
+        public final double acmr;
+        public final double overdraw;
+
+        Stats(int triangles, double acmr, double overdraw) {
+            this.triangles = triangles;
+            this.acmr = acmr;
+            this.overdraw = overdraw;
+        }
+    }
+
+    public static Stats analyze(Model model) {
+        int[] order = identity(model.triangleCount());
+        return new Stats(model.triangleCount(), acmr(model, order), overdraw(model, order));
+    }
+
+    // optimize, printing ACMR and overdraw before and after
+    public static Model optimize(String name, Model model) {
+        Stats before = analyze(model);
+        long start = System.nanoTime();
+        Model optimized = optimize(model);
+        long end = System.nanoTime();
+        Stats after = analyze(optimized);
+        System.out.println(String.format(Locale.ROOT, "mesh optimizer: %s, %d triangles in %.1f ms, ACMR %.3f -> %.3f, overdraw %.3f -> %.3f",
+                name, before.triangles, (end - start) / 1e6, before.acmr, after.acmr, before.overdraw, after.overdraw));
+        return optimized;
+    }
+
+    public static Model optimize(Model model) {
+        int[] order = cacheOrder(model);
+        // the cluster sort is a heuristic: separate objects in one mesh can come out no better, or worse
+        int[] clustered = overdrawOrder(model, order);
+        if (overdraw(model, clustered) < overdraw(model, order)) order = clustered;
+        Model optimized = remap(model, order);
+        if (model.hasBounds()) {
+            optimized.setBounds(model.getBoundsMin(), model.getBoundsMax(), model.getBoundsCenter(), model.getBoundsRadius());
+        }
+        return optimized;
+    }
+
+    private static int[] identity(int count) {
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        return order;
+    }
+
+    // ---- vertex cache order ----
+
+    // Tom Forsyth, "Linear-Speed Vertex Cache Optimisation": greedily emits the best scored triangle among those
+    // touching the simulated LRU cache, scoring vertexes by cache position and by how few triangles still use them.
+    private static int[] cacheOrder(Model model) {
+        int triangleCount = model.triangleCount();
+        int vertexCount = model.vertexCount();
+
+        // triangles still to be emitted per vertex, as compacted adjacency lists
+        int[] live = new int[vertexCount];
+        for (int t = 0; t < triangleCount; t++) {
+            for (int corner = 0; corner < 3; corner++) {
+                live[model.getTriVertexIndex(t, corner)]++;
+            }
+        }
+        int[] adjacencyStart = new int[vertexCount + 1];
+        for (int v = 0; v < vertexCount; v++) {
+            adjacencyStart[v + 1] = adjacencyStart[v] + live[v];
+        }
+        int[] adjacency = new int[adjacencyStart[vertexCount]];
+        int[] filled = new int[vertexCount];
+        for (int t = 0; t < triangleCount; t++) {
+            for (int corner = 0; corner < 3; corner++) {
+                int v = model.getTriVertexIndex(t, corner);
+                adjacency[adjacencyStart[v] + filled[v]++] = t;
+            }
+        }
+
+        int[] cachePosition = new int[vertexCount];
+        Arrays.fill(cachePosition, -1);
+        float[] vertexScore = new float[vertexCount];
+        for (int v = 0; v < vertexCount; v++) {
+            vertexScore[v] = vertexScore(-1, live[v]);
+        }
+        boolean[] emitted = new boolean[triangleCount];
+
+        int[] cache = new int[CACHE_SIZE + 3];
+        int cacheCount = 0;
+        int[] nextCache = new int[CACHE_SIZE + 3];
+        int[] order = new int[triangleCount];
+        int best = -1;
+        int scan = 0;
+        for (int emittedCount = 0; emittedCount < triangleCount; emittedCount++) {
+            if (best < 0) {
+                // nothing in the cache has triangles left, continue with the next one in the original order
+                while (emitted[scan]) {
+                    scan++;
+                }
+                best = scan;
+            }
+            order[emittedCount] = best;
+            emitted[best] = true;
+
+            int nextCount = 0;
+            for (int corner = 0; corner < 3; corner++) {
+                int v = model.getTriVertexIndex(best, corner);
+                int start = adjacencyStart[v];
+                for (int i = 0; i < live[v]; i++) {
+                    if (adjacency[start + i] == best) {
+                        adjacency[start + i] = adjacency[start + live[v] - 1];
+                        live[v]--;
+                        break;
+                    }
+                }
+                if (!contains(nextCache, nextCount, v)) nextCache[nextCount++] = v;
+            }
+            int triangleVertexes = nextCount;
+            for (int i = 0; i < cacheCount; i++) {
+                if (!contains(nextCache, triangleVertexes, cache[i])) nextCache[nextCount++] = cache[i];
+            }
+            int[] swap = cache;
+            cache = nextCache;
+            nextCache = swap;
+            cacheCount = nextCount;
+
+            for (int i = 0; i < cacheCount; i++) {
+                int v = cache[i];
+                cachePosition[v] = (i < CACHE_SIZE) ? i : -1;
+                vertexScore[v] = vertexScore(cachePosition[v], live[v]);
+            }
+            best = -1;
+            float bestScore = -1f;
+            for (int i = 0; i < cacheCount; i++) {
+                int v = cache[i];
+                int start = adjacencyStart[v];
+                for (int j = 0; j < live[v]; j++) {
+                    int t = adjacency[start + j];
+                    float score = vertexScore[model.getTriVertexIndex(t, 0)] + vertexScore[model.getTriVertexIndex(t, 1)]
+                            + vertexScore[model.getTriVertexIndex(t, 2)];
+                    if (score > bestScore) {
+                        bestScore = score;
+                        best = t;
+                    }
+                }
+            }
+            // the three that just fell out of the cache stay out
+            cacheCount = Math.min(cacheCount, CACHE_SIZE);
+        }
+        return order;
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) return true;
+        }
+        return false;
+    }
+
+    private static float vertexScore(int cachePosition, int liveTriangles) {
+        if (liveTriangles == 0) return -1f;
+        float score = 0f;
+        if (cachePosition >= 3) {
+            score = (float) Math.pow(1f - ((cachePosition - 3) / (float) (CACHE_SIZE - 3)), 1.5d);
+        } else if (cachePosition >= 0) {
+            // the last triangle's own vertexes; a bit less than the best, so strips don't always win
+            score = .75f;
+        }
+        return score + (2f / (float) Math.sqrt(liveTriangles));
+    }
+
+    // cache misses per triangle on a FIFO cache, 0.5 at best for large meshes and 3 at worst
+    private static double acmr(Model model, int[] order) {
+        if (order.length == 0) return 0d;
+        int[] fifo = new int[FIFO_SIZE];
+        Arrays.fill(fifo, -1);
+        int head = 0;
+        long misses = 0L;
+        for (int t : order) {
+            for (int corner = 0; corner < 3; corner++) {
+                int v = model.getTriVertexIndex(t, corner);
+                boolean hit = false;
+                for (int entry : fifo) {
+                    if (entry == v) {
+                        hit = true;
+                        break;
+                    }
+                }
+                if (!hit) {
+                    fifo[head] = v;
+                    head = (head + 1) % FIFO_SIZE;
+                    misses++;
+                }
+            }
+        }
+        return misses / (double) order.length;
+    }
+
+    // ---- overdraw order ----
+
+    private static int[] overdrawOrder(Model model, int[] order) {
+        int count = order.length;
+        if (count == 0) return order;
+
+        // hard boundaries where all three vertexes miss: the cache is cold there in any order
+        boolean[] boundary = new boolean[count + 1];
+        boundary[0] = true;
+        boundary[count] = true;
+        int[] fifo = new int[FIFO_SIZE];
+        Arrays.fill(fifo, -1);
+        int[] head = {0};
+        int[] misses = new int[count];
+        for (int i = 0; i < count; i++) {
+            misses[i] = simulate(model, order[i], fifo, head);
+            if (misses[i] == 3) boundary[i] = true;
+        }
+
+        // soft boundaries inside each hard cluster, wherever the part so far is nearly as cache friendly as the whole
+        int[] clusterStarts = new int[count + 1];
+        int clusterCount = 0;
+        int start = 0;
+        while (start < count) {
+            int end = start + 1;
+            while (!boundary[end]) {
+                end++;
+            }
+            int clusterMisses = 0;
+            for (int i = start; i < end; i++) {
+                clusterMisses += misses[i];
+            }
+            double limit = overdrawThreshold * (clusterMisses / (double) (end - start));
+
+            Arrays.fill(fifo, -1);
+            head[0] = 0;
+            int subStart = start;
+            int subMisses = 0;
+            clusterStarts[clusterCount++] = start;
+            for (int i = start; i < end; i++) {
+                subMisses += simulate(model, order[i], fifo, head);
+                if (i + 1 < end && subMisses <= limit * (i + 1 - subStart)) {
+                    clusterStarts[clusterCount++] = i + 1;
+                    subStart = i + 1;
+                    subMisses = 0;
+                    Arrays.fill(fifo, -1);
+                    head[0] = 0;
+                }
+            }
+            start = end;
+        }
+        clusterStarts[clusterCount] = count;
+
+        // sort key: how far out the cluster sits along its own average normal, from the mesh's area centroid
+        double[] centroid = new double[3];
+        double totalArea = 0d;
+        double[][] clusterData = new double[clusterCount][6];
+        double[] clusterArea = new double[clusterCount];
+        for (int c = 0; c < clusterCount; c++) {
+            for (int i = clusterStarts[c]; i < clusterStarts[c + 1]; i++) {
+                int t = order[i];
+                int a = model.getTriVertexIndex(t, 0);
+                int b = model.getTriVertexIndex(t, 1);
+                int d = model.getTriVertexIndex(t, 2);
+                double abX = model.getVertexX(b) - model.getVertexX(a);
+                double abY = model.getVertexY(b) - model.getVertexY(a);
+                double abZ = model.getVertexZ(b) - model.getVertexZ(a);
+                double adX = model.getVertexX(d) - model.getVertexX(a);
+                double adY = model.getVertexY(d) - model.getVertexY(a);
+                double adZ = model.getVertexZ(d) - model.getVertexZ(a);
+                double cx = (abY * adZ) - (abZ * adY);
+                double cy = (abZ * adX) - (abX * adZ);
+                double cz = (abX * adY) - (abY * adX);
+                double area = Math.sqrt((cx * cx) + (cy * cy) + (cz * cz)) * .5d;
+                double mx = (model.getVertexX(a) + model.getVertexX(b) + model.getVertexX(d)) / 3d;
+                double my = (model.getVertexY(a) + model.getVertexY(b) + model.getVertexY(d)) / 3d;
+                double mz = (model.getVertexZ(a) + model.getVertexZ(b) + model.getVertexZ(d)) / 3d;
+                // the stored normal, which is what culling uses, rather than the winding
+                int n = model.getTriNormalIndex(t);
+                double[] data = clusterData[c];
+                data[0] += mx * area;
+                data[1] += my * area;
+                data[2] += mz * area;
+                data[3] += model.getNormalX(n) * area;
+                data[4] += model.getNormalY(n) * area;
+                data[5] += model.getNormalZ(n) * area;
+                clusterArea[c] += area;
+            }
+            centroid[0] += clusterData[c][0];
+            centroid[1] += clusterData[c][1];
+            centroid[2] += clusterData[c][2];
+            totalArea += clusterArea[c];
+        }
+        if (totalArea > 0d) {
+            centroid[0] /= totalArea;
+            centroid[1] /= totalArea;
+            centroid[2] /= totalArea;
+        }
+        double[] keys = new double[clusterCount];
+        Integer[] clusters = new Integer[clusterCount];
+        for (int c = 0; c < clusterCount; c++) {
+            double[] data = clusterData[c];
+            double area = Math.max(clusterArea[c], Double.MIN_VALUE);
+            double nLength = Math.sqrt((data[3] * data[3]) + (data[4] * data[4]) + (data[5] * data[5]));
+            keys[c] = (nLength == 0d) ? 0d : (((data[0] / area) - centroid[0]) * data[3] + ((data[1] / area) - centroid[1]) * data[4]
+                    + ((data[2] / area) - centroid[2]) * data[5]) / nLength;
+            clusters[c] = c;
+        }
+        Arrays.sort(clusters, (x, y) -> Double.compare(keys[y], keys[x]));
+
+        int[] sorted = new int[count];
+        int next = 0;
+        for (int c : clusters) {
+            for (int i = clusterStarts[c]; i < clusterStarts[c + 1]; i++) {
+                sorted[next++] = order[i];
+            }
+        }
+        return sorted;
+    }
+
+    private static int simulate(Model model, int t, int[] fifo, int[] head) {
+        int misses = 0;
+        for (int corner = 0; corner < 3; corner++) {
+            int v = model.getTriVertexIndex(t, corner);
+            boolean hit = false;
+            for (int entry : fifo) {
+                if (entry == v) {
+                    hit = true;
+                    break;
+                }
+            }
+            if (!hit) {
+                fifo[head[0]] = v;
+                head[0] = (head[0] + 1) % fifo.length;
+                misses++;
+            }
+        }
+        return misses;
+    }
+
+    // Fragments that pass a less-than depth test per covered pixel, over orthographic views of the whole model
+    // from every direction in OVERDRAW_VIEWS, culling the triangles whose normal faces away as the renderer does.
+    private static double overdraw(Model model, int[] order) {
+        if (order.length == 0 || model.vertexCount() == 0) return 0d;
+        float cx = model.getBoundsCenter().x;
+        float cy = model.getBoundsCenter().y;
+        float cz = model.getBoundsCenter().z;
+        float radius = Math.max(model.getBoundsRadius(), 1e-6f);
+        float toPixels = OVERDRAW_RESOLUTION / (2f * radius);
+
+        float[] depth = new float[OVERDRAW_RESOLUTION * OVERDRAW_RESOLUTION];
+        float[] projected = new float[model.vertexCount() * 3];
+        long shaded = 0L;
+        long covered = 0L;
+        for (float[] d : OVERDRAW_VIEWS) {
+            // screen axes u and v perpendicular to the view direction d
+            float[] u = (Math.abs(d[1]) < .9f) ? cross(new float[]{0f, 1f, 0f}, d) : cross(new float[]{1f, 0f, 0f}, d);
+            float[] v = cross(d, u);
+            for (int i = 0; i < model.vertexCount(); i++) {
+                float x = model.getVertexX(i) - cx;
+                float y = model.getVertexY(i) - cy;
+                float z = model.getVertexZ(i) - cz;
+                projected[i * 3] = (((x * u[0]) + (y * u[1]) + (z * u[2])) * toPixels) + (OVERDRAW_RESOLUTION * .5f);
+                projected[(i * 3) + 1] = (((x * v[0]) + (y * v[1]) + (z * v[2])) * toPixels) + (OVERDRAW_RESOLUTION * .5f);
+                projected[(i * 3) + 2] = (x * d[0]) + (y * d[1]) + (z * d[2]);
+            }
+            Arrays.fill(depth, Float.MAX_VALUE);
+            for (int t : order) {
+                int n = model.getTriNormalIndex(t);
+                if ((model.getNormalX(n) * d[0]) + (model.getNormalY(n) * d[1]) + (model.getNormalZ(n) * d[2]) >= 0f) continue;
+                shaded += rasterize(projected, model.getTriVertexIndex(t, 0), model.getTriVertexIndex(t, 1), model.getTriVertexIndex(t, 2), depth);
+            }
+            for (float z : depth) {
+                if (z != Float.MAX_VALUE) covered++;
+            }
+        }
+        return (covered == 0L) ? 0d : shaded / (double) covered;
+    }
+
+    private static float[] cross(float[] a, float[] b) {
+        float[] c = {(a[1] * b[2]) - (a[2] * b[1]), (a[2] * b[0]) - (a[0] * b[2]), (a[0] * b[1]) - (a[1] * b[0])};
+        float length = (float) Math.sqrt((c[0] * c[0]) + (c[1] * c[1]) + (c[2] * c[2]));
+        c[0] /= length;
+        c[1] /= length;
+        c[2] /= length;
+        return c;
+    }
+
+    // pixel centres inside the triangle, either winding; returns the fragments that passed the depth test
+    private static int rasterize(float[] p, int a, int b, int c, float[] depth) {
+        float ax = p[a * 3], ay = p[(a * 3) + 1], az = p[(a * 3) + 2];
+        float bx = p[b * 3], by = p[(b * 3) + 1], bz = p[(b * 3) + 2];
+        float cx = p[c * 3], cy = p[(c * 3) + 1], cz = p[(c * 3) + 2];
+        float area = ((bx - ax) * (cy - ay)) - ((by - ay) * (cx - ax));
+        if (area == 0f) return 0;
+        float invArea = 1f / area;
+        int minX = Math.max(0, (int) Math.ceil(Math.min(Math.min(ax, bx), cx) - .5f));
+        int maxX = Math.min(OVERDRAW_RESOLUTION - 1, (int) Math.floor(Math.max(Math.max(ax, bx), cx) - .5f));
+        int minY = Math.max(0, (int) Math.ceil(Math.min(Math.min(ay, by), cy) - .5f));
+        int maxY = Math.min(OVERDRAW_RESOLUTION - 1, (int) Math.floor(Math.max(Math.max(ay, by), cy) - .5f));
+        int passed = 0;
+        for (int y = minY; y <= maxY; y++) {
+            float py = y + .5f;
+            for (int x = minX; x <= maxX; x++) {
+                float px = x + .5f;
+                float wA = (((bx - px) * (cy - py)) - ((by - py) * (cx - px))) * invArea;
+                float wB = (((cx - px) * (ay - py)) - ((cy - py) * (ax - px))) * invArea;
+                float wC = 1f - wA - wB;
+                if (wA < 0f || wB < 0f || wC < 0f) continue;
+                float z = (wA * az) + (wB * bz) + (wC * cz);
+                int index = (y * OVERDRAW_RESOLUTION) + x;
+                if (z < depth[index]) {
+                    depth[index] = z;
+                    passed++;
+                }
+            }
+        }
+        return passed;
+    }
+
+    // ---- vertex fetch order ----
+
+    // the triangles in the given order, with each stream renumbered by first use; unused entries go last
+    private static Model remap(Model model, int[] order) {
+        int[] positionMap = firstUse(model.vertexCount(), order, model, 0);
+        int[] uvMap = firstUse(model.uvCount(), order, model, 1);
+        int[] normalMap = firstUse(model.normalCount(), order, model, 2);
+
+        float[] positions = new float[model.vertexCount() * 3];
+        for (int i = 0; i < model.vertexCount(); i++) {
+            int o = positionMap[i] * 3;
+            positions[o] = model.getVertexX(i);
+            positions[o + 1] = model.getVertexY(i);
+            positions[o + 2] = model.getVertexZ(i);
+        }
+        float[] uvs = new float[model.uvCount() * 2];
+        for (int i = 0; i < model.uvCount(); i++) {
+            uvs[uvMap[i] * 2] = model.getU(i);
+            uvs[(uvMap[i] * 2) + 1] = model.getV(i);
+        }
+        float[] normals = new float[model.normalCount() * 3];
+        for (int i = 0; i < model.normalCount(); i++) {
+            int o = normalMap[i] * 3;
+            normals[o] = model.getNormalX(i);
+            normals[o + 1] = model.getNormalY(i);
+            normals[o + 2] = model.getNormalZ(i);
+        }
+        int[] triangles = new int[order.length * Model.TRIANGLE_INTS];
+        for (int i = 0; i < order.length; i++) {
+            int t = order[i];
+            int o = i * Model.TRIANGLE_INTS;
+            for (int corner = 0; corner < 3; corner++) {
+                triangles[o + corner] = positionMap[model.getTriVertexIndex(t, corner)];
+                triangles[o + 3 + corner] = uvMap[model.getTriUVIndex(t, corner)];
+            }
+            triangles[o + 6] = normalMap[model.getTriNormalIndex(t)];
+        }
+        return new Model(FloatBuffer.wrap(positions), FloatBuffer.wrap(uvs), FloatBuffer.wrap(normals), IntBuffer.wrap(triangles));
+    }
+
+    // stream 0 positions, 1 UVs, 2 normals
+    private static int[] firstUse(int count, int[] order, Model model, int stream) {
+        int[] map = new int[count];
+        Arrays.fill(map, -1);
+        int next = 0;
+        for (int t : order) {
+            if (stream == 2) {
+                int n = model.getTriNormalIndex(t);
+                if (map[n] < 0) map[n] = next++;
+                continue;
+            }
+            for (int corner = 0; corner < 3; corner++) {
+                int i = (stream == 0) ? model.getTriVertexIndex(t, corner) : model.getTriUVIndex(t, corner);
+                if (map[i] < 0) map[i] = next++;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            if (map[i] < 0) map[i] = next++;
+        }
+        return map;
+    }
+}
@@ -3,28 +3,205 @@ package game_engine.scene;
 import game_engine.math.Float2;
 import game_engine.math.Float3;
 
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+// Mesh data lives in flat streams: xyz per vertex, uv per UV, xyz per normal and seven ints per triangle
+// (A, B, C, uvA, uvB, uvC, N). The streams wrap float[]/int[] arrays for models built in code and are views of
+// the file for models mapped by MeshFile, so a model holds no object per vertex or triangle. The index
+// accessors read the streams directly and allocate nothing; the accessors returning Float3, Float2 and
+// Triangle are adapters that build a new object on every call, for code off the per-frame paths.
 public class Model {
-    private final Float3[] vertexes;
-    private final Float2[] UVs;
-    private final Float3[] normals;
-    private final Triangle[] triangles;
+    public static final int TRIANGLE_INTS = 7;
+
+    private final FloatBuffer positions;
+    private final FloatBuffer uvs;
+    private final FloatBuffer normalStream;
+    private final IntBuffer triangleStream;
+
+    private Float3 boundsMin;
+    private Float3 boundsMax;
+    private Float3 boundsCenter;
+    private float boundsRadius;
     public Model(Float3[] vertexes, Float2[] UVs, Float3[] normals, Triangle[] triangles) {
-        this.vertexes = vertexes;
-        this.UVs = UVs;
-        this.normals = normals;
-        this.triangles = triangles;
+        this(pack(vertexes), pack(UVs), pack(normals), pack(triangles));
+    }
+    public Model(FloatBuffer positions, FloatBuffer uvs, FloatBuffer normals, IntBuffer triangles) {
+        this.positions = positions;
+        this.uvs = uvs;
+        this.normalStream = normals;
+        this.triangleStream = triangles;
+    }
+
+    private static FloatBuffer pack(Float3[] f3s) {
+        float[] values = new float[f3s.length * 3];
+        for (int i = 0; i < f3s.length; i++) {
+            values[i * 3] = f3s[i].x;
+            values[(i * 3) + 1] = f3s[i].y;
+            values[(i * 3) + 2] = f3s[i].z;
+        }
+        return FloatBuffer.wrap(values);
+    }
+    private static FloatBuffer pack(Float2[] f2s) {
+        float[] values = new float[f2s.length * 2];
+        for (int i = 0; i < f2s.length; i++) {
+            values[i * 2] = f2s[i].x;
+            values[(i * 2) + 1] = f2s[i].y;
+        }
+        return FloatBuffer.wrap(values);
+    }
+    private static IntBuffer pack(Triangle[] triangles) {
+        int[] values = new int[triangles.length * TRIANGLE_INTS];
+        for (int i = 0; i < triangles.length; i++) {
+            int o = i * TRIANGLE_INTS;
+            for (int corner = 0; corner < 3; corner++) {
+                values[o + corner] = triangles[i].getVertexIndex(corner);
+                values[o + 3 + corner] = triangles[i].getUVIndex(corner);
+            }
+            values[o + 6] = triangles[i].getNormalIndex();
+        }
+        return IntBuffer.wrap(values);
+    }
+
+    public void computeBounds() {
+        int count = vertexCount();
+        if (count == 0) {
+            setBounds(new Float3(), new Float3(), new Float3(), 0f);
+            return;
+        }
+        float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, minZ = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE, maxZ = -Float.MAX_VALUE;
+        for (int i = 0; i < count * 3; i += 3) {
+            float x = positions.get(i);
+            float y = positions.get(i + 1);
+            float z = positions.get(i + 2);
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            minZ = Math.min(minZ, z);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+            maxZ = Math.max(maxZ, z);
+        }
+        Float3 min = new Float3(minX, minY, minZ);
+        Float3 max = new Float3(maxX, maxY, maxZ);
+        Float3 center = min.lerp(max, .5f);
+        double radiusSq = 0d;
+        for (int i = 0; i < count * 3; i += 3) {
+            float dx = positions.get(i) - center.x;
+            float dy = positions.get(i + 1) - center.y;
+            float dz = positions.get(i + 2) - center.z;
+            radiusSq = Math.max(radiusSq, (dx * dx) + (dy * dy) + (dz * dz));
+        }
+        setBounds(min, max, center, (float) Math.sqrt(radiusSq));
+    }
+    // for bounds stored with the mesh, so they needn't be recomputed from every vertex
+    void setBounds(Float3 min, Float3 max, Float3 center, float radius) {
+        boundsMin = min;
+        boundsMax = max;
+        boundsRadius = radius;
+        boundsCenter = center;
+    }
+    public boolean hasBounds() {
+        return boundsCenter != null;
+    }
+    public Float3 getBoundsMin() {
+        if (boundsCenter == null) computeBounds();
+        return boundsMin;
+    }
+    public Float3 getBoundsMax() {
+        if (boundsCenter == null) computeBounds();
+        return boundsMax;
+    }
+    public Float3 getBoundsCenter() {
+        if (boundsCenter == null) computeBounds();
+        return boundsCenter;
+    }
+    public float getBoundsRadius() {
+        if (boundsCenter == null) computeBounds();
+        return boundsRadius;
     }
 
     public int triangleCount() {
-        return triangles.length;
+        return triangleStream.limit() / TRIANGLE_INTS;
+    }
+    public int vertexCount() {
+        return positions.limit() / 3;
+    }
+    public int uvCount() {
+        return uvs.limit() / 2;
+    }
+    public int normalCount() {
+        return normalStream.limit() / 3;
+    }
+
+    // read-only views of the streams, positioned at 0
+    public FloatBuffer positions() {
+        return positions.asReadOnlyBuffer();
+    }
+    public FloatBuffer uvs() {
+        return uvs.asReadOnlyBuffer();
+    }
+    public FloatBuffer normals() {
+        return normalStream.asReadOnlyBuffer();
+    }
+    public IntBuffer triangles() {
+        return triangleStream.asReadOnlyBuffer();
+    }
+
+    public float getVertexX(int i) {
+        return positions.get(i * 3);
+    }
+    public float getVertexY(int i) {
+        return positions.get((i * 3) + 1);
+    }
+    public float getVertexZ(int i) {
+        return positions.get((i * 3) + 2);
+    }
+    public float getU(int i) {
+        return uvs.get(i * 2);
+    }
+    public float getV(int i) {
+        return uvs.get((i * 2) + 1);
+    }
+    public float getNormalX(int i) {
+        return normalStream.get(i * 3);
+    }
+    public float getNormalY(int i) {
+        return normalStream.get((i * 3) + 1);
+    }
+    public float getNormalZ(int i) {
+        return normalStream.get((i * 3) + 2);
+    }
+    public int getTriVertexIndex(int t, int corner) {
+        return triangleStream.get((t * TRIANGLE_INTS) + corner);
+    }
+    public int getTriUVIndex(int t, int corner) {
+        return triangleStream.get((t * TRIANGLE_INTS) + 3 + corner);
+    }
+    public int getTriNormalIndex(int t) {
+        return triangleStream.get((t * TRIANGLE_INTS) + 6);
+    }
+
+    public Triangle getTriangle(int t) {
+        return new Triangle(getTriVertexIndex(t, 0), getTriVertexIndex(t, 1), getTriVertexIndex(t, 2),
+                getTriUVIndex(t, 0), getTriUVIndex(t, 1), getTriUVIndex(t, 2), getTriNormalIndex(t));
+    }
+    public Float3 getVertex(int i) {
+        return new Float3(getVertexX(i), getVertexY(i), getVertexZ(i));
+    }
+    public Float2 getUV(int i) {
+        return new Float2(getU(i), getV(i));
+    }
+    public Float3 getNormal(int i) {
+        return new Float3(getNormalX(i), getNormalY(i), getNormalZ(i));
     }
-    public Float3[] getTriVertexes(int i) {
-        return triangles[i].getVertexes(vertexes);
+    public Float3[] getTriVertexes(int t) {
+        return new Float3[]{getVertex(getTriVertexIndex(t, 0)), getVertex(getTriVertexIndex(t, 1)), getVertex(getTriVertexIndex(t, 2))};
     }
-    public Float2[] getTriUVs(int i) {
-        return triangles[i].getUVs(UVs);
+    public Float2[] getTriUVs(int t) {
+        return new Float2[]{getUV(getTriUVIndex(t, 0)), getUV(getTriUVIndex(t, 1)), getUV(getTriUVIndex(t, 2))};
     }
-    public Float3 getTriNormal(int i) {
-        return triangles[i].getNormal(normals);
+    public Float3 getTriNormal(int t) {
+        return getNormal(getTriNormalIndex(t));
     }
 }
@@ -0,0 +1,494 @@
+package game_engine.scene;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Streams a Wavefront OBJ file into a Model. The file is read through one fixed buffer and parsed byte by
+// byte, so no line or token becomes a String; memory grows with the mesh, not with the text describing it.
+//
+// Reads v, vt, vn and f; everything else (groups, materials, smoothing, free-form geometry) is skipped. Faces
+// are fan-triangulated, which assumes convex polygons as exporters write them, and zero-area triangles are
+// dropped. OBJ's right-handed y-up frame is the engine's turned half a turn about y, so positions are kept as
+// they are; v is flipped because OBJ puts v = 0 at the bottom of the image. Each triangle gets one normal,
+// the average of its corners' vn or, without them, the face normal of its counter-clockwise winding.
+// Positions, UVs and normals are deduplicated by value and only the ones faces use end up in the model.
+public class ObjLoader {
+    private static final int BUFFER_SIZE = 1 << 16;
+    // bytes kept in the buffer ahead of a number, so a token the fast path rejects can be re-read
+    private static final int MAX_TOKEN = 64;
+    // every entry is exact in a float, as is any mantissa up to 2^24
+    private static final float[] POWERS_OF_TEN = new float[11];
+    private static final long MAX_EXACT_MANTISSA = 1L << 24;
+    static {
+        POWERS_OF_TEN[0] = 1f;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10f;
+        }
+    }
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final byte[] bytes = buffer.array();
+    private int pos = 0;
+    private int limit = 0;
+    private int line = 1;
+
+    // everything the file declares, in file order
+    private final FloatList rawPositions = new FloatList();
+    private final FloatList rawUVs = new FloatList();
+    private final FloatList rawNormals = new FloatList();
+    // index in the model of each raw position / UV, -1 until a face uses it
+    private final IntList positionRemap = new IntList();
+    private final IntList uvRemap = new IntList();
+
+    private final AttributeTable positions = new AttributeTable(3);
+    private final AttributeTable UVs = new AttributeTable(2);
+    private final AttributeTable normals = new AttributeTable(3);
+    // Model.TRIANGLE_INTS per triangle, in Triangle's constructor order
+    private final IntList triangles = new IntList();
+
+    // corners of the face being read
+    private final IntList faceV = new IntList();
+    private final IntList faceT = new IntList();
+    private final IntList faceN = new IntList();
+
+    private ObjLoader(ReadableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    public static Model load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return load(channel);
+        } catch (IOException e) {
+            throw new IOException(path + ": " + e.getMessage(), e);
+        }
+    }
+
+    public static Model load(ReadableByteChannel channel) throws IOException {
+        ObjLoader loader = new ObjLoader(channel);
+        loader.parse();
+        return loader.toModel();
+    }
+
+    private void parse() throws IOException {
+        while (true) {
+            skipSpaces();
+            int c = peek();
+            if (c < 0) break;
+            if (c == 'v') {
+                pos++;
+                c = peek();
+                if (isSpace(c)) {
+                    rawPositions.add(parseFloat(), parseFloat(), parseFloat());
+                    positionRemap.add(-1);
+                } else if (c == 't' && isSpace(peekAfter())) {
+                    pos++;
+                    float u = parseFloat();
+                    // a missing v means 0
+                    float v = atNumber() ? parseFloat() : 0f;
+                    rawUVs.add(u, 1f - v);
+                    uvRemap.add(-1);
+                } else if (c == 'n' && isSpace(peekAfter())) {
+                    pos++;
+                    rawNormals.add(parseFloat(), parseFloat(), parseFloat());
+                }
+            } else if (c == 'f' && isSpace(peekAfter())) {
+                pos++;
+                parseFace();
+            }
+            skipLine();
+        }
+    }
+
+    private void parseFace() throws IOException {
+        faceV.clear();
+        faceT.clear();
+        faceN.clear();
+        while (atNumber()) {
+            faceV.add(resolve(parseInt(), rawPositions.size() / 3, "position"));
+            int t = -1;
+            int n = -1;
+            if (peek() == '/') {
+                pos++;
+                if (peek() != '/') t = resolve(parseInt(), rawUVs.size() / 2, "uv");
+                if (peek() == '/') {
+                    pos++;
+                    n = resolve(parseInt(), rawNormals.size() / 3, "normal");
+                }
+            }
+            faceT.add(t);
+            faceN.add(n);
+        }
+        if (faceV.size() < 3) throw error("a face needs at least 3 corners");
+        for (int i = 1; i + 1 < faceV.size(); i++) {
+            addTriangle(0, i, i + 1);
+        }
+    }
+
+    private void addTriangle(int a, int b, int c) {
+        float[] p = rawPositions.values;
+        int pa = faceV.get(a) * 3;
+        int pb = faceV.get(b) * 3;
+        int pc = faceV.get(c) * 3;
+        float abX = p[pb] - p[pa], abY = p[pb + 1] - p[pa + 1], abZ = p[pb + 2] - p[pa + 2];
+        float acX = p[pc] - p[pa], acY = p[pc + 1] - p[pa + 1], acZ = p[pc + 2] - p[pa + 2];
+        float nx = (abY * acZ) - (abZ * acY);
+        float ny = (abZ * acX) - (abX * acZ);
+        float nz = (abX * acY) - (abY * acX);
+        if (nx == 0f && ny == 0f && nz == 0f) return;
+
+        if (faceN.get(a) >= 0 && faceN.get(b) >= 0 && faceN.get(c) >= 0) {
+            float[] n = rawNormals.values;
+            int na = faceN.get(a) * 3;
+            int nb = faceN.get(b) * 3;
+            int nc = faceN.get(c) * 3;
+            float sx = n[na] + n[nb] + n[nc];
+            float sy = n[na + 1] + n[nb + 1] + n[nc + 1];
+            float sz = n[na + 2] + n[nb + 2] + n[nc + 2];
+            // corners pointing in opposite directions leave nothing to average; use the face normal
+            if (sx != 0f || sy != 0f || sz != 0f) {
+                nx = sx;
+                ny = sy;
+                nz = sz;
+            }
+        }
+        float invLength = (float) (1d / Math.sqrt((nx * nx) + (ny * ny) + (nz * nz)));
+
+        triangles.add(position(faceV.get(a)), position(faceV.get(b)), position(faceV.get(c)));
+        triangles.add(uv(faceT.get(a)), uv(faceT.get(b)), uv(faceT.get(c)));
+        triangles.add(normals.add(nx * invLength, ny * invLength, nz * invLength));
+    }
+
+    private int position(int raw) {
+        int index = positionRemap.get(raw);
+        if (index < 0) {
+            float[] p = rawPositions.values;
+            index = positions.add(p[raw * 3], p[(raw * 3) + 1], p[(raw * 3) + 2]);
+            positionRemap.set(raw, index);
+        }
+        return index;
+    }
+
+    // corners without a vt all share the UV (0, 0)
+    private int uv(int raw) {
+        if (raw < 0) return UVs.add(0f, 0f, 0f);
+        int index = uvRemap.get(raw);
+        if (index < 0) {
+            index = UVs.add(rawUVs.values[raw * 2], rawUVs.values[(raw * 2) + 1], 0f);
+            uvRemap.set(raw, index);
+        }
+        return index;
+    }
+
+    // OBJ indices count from 1, negative ones count back from the last element declared so far
+    private int resolve(int index, int count, String kind) throws IOException {
+        int resolved = (index < 0) ? count + index : index - 1;
+        if (index == 0 || resolved < 0 || resolved >= count) {
+            throw error(kind + " index " + index + " out of range, " + count + " declared");
+        }
+        return resolved;
+    }
+
+    private Model toModel() {
+        float[] modelUVs = new float[UVs.count * 2];
+        for (int i = 0; i < UVs.count; i++) {
+            modelUVs[i * 2] = UVs.values[i * 3];
+            modelUVs[(i * 2) + 1] = UVs.values[(i * 3) + 1];
+        }
+        return new Model(
+                FloatBuffer.wrap(Arrays.copyOf(positions.values, positions.count * 3)),
+                FloatBuffer.wrap(modelUVs),
+                FloatBuffer.wrap(Arrays.copyOf(normals.values, normals.count * 3)),
+                IntBuffer.wrap(Arrays.copyOf(triangles.values, triangles.size())));
+    }
+
+    // ---- tokenizer ----
+
+    private int peek() throws IOException {
+        if (pos == limit && !fill()) return -1;
+        return bytes[pos] & 0xff;
+    }
+
+    private int peekAfter() throws IOException {
+        ensureAvailable(2);
+        return (pos + 1 < limit) ? bytes[pos + 1] & 0xff : -1;
+    }
+
+    // moves the unread bytes to the front of the buffer and reads until n are there or the channel ends
+    private void ensureAvailable(int n) throws IOException {
+        if (limit - pos >= n) return;
+        System.arraycopy(bytes, pos, bytes, 0, limit - pos);
+        limit -= pos;
+        pos = 0;
+        buffer.clear().position(limit);
+        while (limit < n) {
+            int read = channel.read(buffer);
+            if (read < 0) return;
+            limit += read;
+        }
+    }
+
+    private boolean fill() throws IOException {
+        buffer.clear();
+        int read;
+        do {
+            read = channel.read(buffer);
+        } while (read == 0);
+        if (read < 0) return false;
+        pos = 0;
+        limit = read;
+        return true;
+    }
+
+    private static boolean isSpace(int c) {
+        return c == ' ' || c == '\t' || c == '\r';
+    }
+
+    private void skipSpaces() throws IOException {
+        while (isSpace(peek())) {
+            pos++;
+        }
+    }
+
+    private void skipLine() throws IOException {
+        int c;
+        while ((c = peek()) >= 0) {
+            pos++;
+            if (c == '\n') {
+                line++;
+                return;
+            }
+        }
+    }
+
+    private boolean atNumber() throws IOException {
+        skipSpaces();
+        int c = peek();
+        return (c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.';
+    }
+
+    private int parseInt() throws IOException {
+        int c = peek();
+        boolean negative = (c == '-');
+        if (c == '-' || c == '+') {
+            pos++;
+            c = peek();
+        }
+        if (c < '0' || c > '9') throw error("expected an index");
+        long value = 0L;
+        while (c >= '0' && c <= '9') {
+            value = (value * 10L) + (c - '0');
+            if (value > Integer.MAX_VALUE) throw error("index too large");
+            pos++;
+            c = peek();
+        }
+        return (int) (negative ? -value : value);
+    }
+
+    // Plain decimals whose digits fit an exact float mantissa, with a power of ten up to 10^10, are parsed in
+    // place: both operands are exact, so the one float multiply or divide rounds exactly as Float.parseFloat
+    // would. Anything else (more digits, larger exponents, NaN, Infinity, hex) goes through Float.parseFloat.
+    private float parseFloat() throws IOException {
+        skipSpaces();
+        ensureAvailable(MAX_TOKEN);
+        int start = pos;
+        int c = peek();
+        boolean negative = (c == '-');
+        if (c == '-' || c == '+') {
+            pos++;
+            c = peek();
+        }
+        long mantissa = 0L;
+        int digits = 0;
+        int exponent = 0;
+        boolean any = false;
+        while (c >= '0' && c <= '9') {
+            if (digits < 18) {
+                mantissa = (mantissa * 10L) + (c - '0');
+                if (mantissa != 0L) digits++;
+            } else {
+                exponent++;
+            }
+            any = true;
+            pos++;
+            c = peek();
+        }
+        if (c == '.') {
+            pos++;
+            c = peek();
+            while (c >= '0' && c <= '9') {
+                if (digits < 18) {
+                    mantissa = (mantissa * 10L) + (c - '0');
+                    if (mantissa != 0L) digits++;
+                    exponent--;
+                }
+                any = true;
+                pos++;
+                c = peek();
+            }
+        }
+        if (any && (c == 'e' || c == 'E')) {
+            pos++;
+            exponent += parseInt();
+            c = peek();
+        }
+        if (!any || !(c < 0 || isSpace(c) || c == '\n')) {
+            // a refill since start means the token is longer than MAX_TOKEN, which no valid number is
+            if (pos < start) throw error("expected a number");
+            pos = start;
+            return parseFloatSlow();
+        }
+        if (mantissa > MAX_EXACT_MANTISSA || Math.abs(exponent) >= POWERS_OF_TEN.length) {
+            // a plain decimal, but not exact in float; it has been scanned, so it is converted straight from the buffer
+            if (pos < start) throw error("expected a number");
+            return Float.parseFloat(new String(bytes, start, pos - start, StandardCharsets.ISO_8859_1));
+        }
+
+        float value = mantissa;
+        if (exponent < 0) {
+            value /= POWERS_OF_TEN[-exponent];
+        } else if (exponent > 0) {
+            value *= POWERS_OF_TEN[exponent];
+        }
+        return negative ? -value : value;
+    }
+
+    private float parseFloatSlow() throws IOException {
+        StringBuilder token = new StringBuilder();
+        int c;
+        while ((c = peek()) >= 0 && !isSpace(c) && c != '\n') {
+            token.append((char) c);
+            pos++;
+        }
+        try {
+            return Float.parseFloat(token.toString());
+        } catch (NumberFormatException e) {
+            throw error("expected a number, found \"" + token + "\"");
+        }
+    }
+
+    private IOException error(String message) {
+        return new IOException("line " + line + ": " + message);
+    }
+
+    // ---- growable primitive storage ----
+
+    private static class FloatList {
+        float[] values = new float[1024];
+        int size = 0;
+
+        void add(float a, float b) {
+            ensure(2);
+            values[size++] = a;
+            values[size++] = b;
+        }
+        void add(float a, float b, float c) {
+            ensure(3);
+            values[size++] = a;
+            values[size++] = b;
+            values[size++] = c;
+        }
+        int size() {
+            return size;
+        }
+        private void ensure(int extra) {
+            if (size + extra > values.length) values = Arrays.copyOf(values, Math.max(values.length * 2, size + extra));
+        }
+    }
+
+    private static class IntList {
+        int[] values = new int[1024];
+        int size = 0;
+
+        void add(int a) {
+            ensure(1);
+            values[size++] = a;
+        }
+        void add(int a, int b, int c) {
+            ensure(3);
+            values[size++] = a;
+            values[size++] = b;
+            values[size++] = c;
+        }
+        int get(int i) {
+            return values[i];
+        }
+        void set(int i, int value) {
+            values[i] = value;
+        }
+        int size() {
+            return size;
+        }
+        void clear() {
+            size = 0;
+        }
+        private void ensure(int extra) {
+            if (size + extra > values.length) values = Arrays.copyOf(values, Math.max(values.length * 2, size + extra));
+        }
+    }
+
+    // Distinct float tuples with an open-addressing index; add returns the index of an equal tuple if there is one.
+    private static class AttributeTable {
+        final int dims;
+        float[] values = new float[3 * 1024];
+        int count = 0;
+        // tuple index + 1 per slot, 0 for empty
+        private int[] slots = new int[2048];
+
+        AttributeTable(int dims) {
+            this.dims = dims;
+        }
+
+        // dims == 2 ignores z
+        int add(float x, float y, float z) {
+            // + 0f turns -0 into 0 so both land on the same entry
+            x += 0f;
+            y += 0f;
+            z = (dims == 2) ? 0f : z + 0f;
+            int mask = slots.length - 1;
+            int slot = hash(x, y, z) & mask;
+            while (slots[slot] != 0) {
+                int o = (slots[slot] - 1) * 3;
+                if (values[o] == x && values[o + 1] == y && values[o + 2] == z) return slots[slot] - 1;
+                slot = (slot + 1) & mask;
+            }
+            if ((count + 1) * 3 > values.length) values = Arrays.copyOf(values, values.length * 2);
+            int o = count * 3;
+            values[o] = x;
+            values[o + 1] = y;
+            values[o + 2] = z;
+            slots[slot] = ++count;
+            // keep the table at most half full
+            if (count * 2 > slots.length) rehash();
+            return count - 1;
+        }
+
+        private static int hash(float x, float y, float z) {
+            int h = Float.floatToIntBits(x);
+            h = (h * 31) + Float.floatToIntBits(y);
+            h = (h * 31) + Float.floatToIntBits(z);
+            return h ^ (h >>> 16) ^ (h >>> 7);
+        }
+
+        private void rehash() {
+            slots = new int[slots.length * 2];
+            int mask = slots.length - 1;
+            for (int i = 0; i < count; i++) {
+                int o = i * 3;
+                int slot = hash(values[o], values[o + 1], values[o + 2]) & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = i + 1;
+            }
+        }
+    }
+}
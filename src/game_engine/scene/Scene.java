@@ -7,7 +7,10 @@ import game_engine.math.Float2;
 import game_engine.math.Float3;
 import game_engine.math.Maths;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
 
@@ -26,6 +29,38 @@ public abstract class Scene {
             camera.script.update(camera);
         }
     }
+    public static void updateScripts() {
+        runScripts(false);
+    }
+    public static void fixedUpdateScripts() {
+        runScripts(true);
+    }
+    private static void runScripts(boolean fixed) {
+        updatingScripts = true;
+        try {
+            if (fixed) {
+                camera.fixedUpdateScript();
+            } else {
+                updateCamera();
+            }
+            for (int o = 0; o < objectCount; o++) {
+                GameObject object = objects[o];
+                if (object.active) {
+                    if (fixed) {
+                        object.fixedUpdateScript();
+                    } else {
+                        object.updateScript();
+                    }
+                }
+            }
+        } finally {
+            updatingScripts = false;
+        }
+        for (String name : pendingDeletes) {
+            delete(name);
+        }
+        pendingDeletes.clear();
+    }
 
     public static final Material errorMat = new Material(new UnlitShader(), new Texture(2, 2), 4f, 4f);
     private static final Model errorModel = new Model(
@@ -43,8 +78,13 @@ public abstract class Scene {
                     new Triangle(4, 7, 5, 0, 3, 1, 1), new Triangle(4, 7, 6, 0, 3, 2, 1),
                     new Triangle(8, 11, 9, 0, 3, 1, 1), new Triangle(8, 11, 10, 0, 3, 2, 1)});
     private static final Map<String, Model> models = new HashMap<>();
+    // reorder every added model's triangles and vertexes with MeshOptimizer, reporting the gain of each
+    public static boolean optimizeModels = false;
     public static void addModel(String key, Model model) {
+        if (optimizeModels) model = MeshOptimizer.optimize(key, model);
+        if (!model.hasBounds()) model.computeBounds();
         models.put(key, model);
+        structureVersion++;
     }
     public static void replaceModel(String key, Model model) {
         removeModel(key);
@@ -52,6 +92,7 @@ public abstract class Scene {
     }
     public static void removeModel(String key) {
         models.remove(key);
+        structureVersion++;
     }
     public static Model getModel(String key) {
         Model model = models.get(key);
@@ -61,24 +102,70 @@ public abstract class Scene {
         return models.get(key);
     }
 
-    private static final Map<String, GameObject> objects = new HashMap<>();
+    // Objects live in a dense array in insertion order, with a name index alongside. Deletes requested while
+    // scripts are being updated are applied once the update pass is over, so indexes stay valid during it.
+    private static GameObject[] objects = new GameObject[16];
+    private static int objectCount = 0;
+    private static final Map<String, Integer> objectIndexes = new HashMap<>();
+    private static final List<String> pendingDeletes = new ArrayList<>();
+    private static boolean updatingScripts = false;
+    private static int structureVersion = 0;
     public static void add(GameObject object) {
-        objects.put(object.name, object);
+        Integer index = objectIndexes.get(object.name);
+        if (index != null) {
+            objects[index] = object;
+        } else {
+            if (objectCount == objects.length) {
+                objects = Arrays.copyOf(objects, objectCount * 2);
+            }
+            objectIndexes.put(object.name, objectCount);
+            objects[objectCount++] = object;
+        }
+        structureVersion++;
     }
     public static void delete(String name) {
-        objects.remove(name);
+        if (updatingScripts) {
+            pendingDeletes.add(name);
+            return;
+        }
+        Integer index = objectIndexes.remove(name);
+        if (index == null) return;
+
+        System.arraycopy(objects, index + 1, objects, index, objectCount - index - 1);
+        objects[--objectCount] = null;
+        for (int i = index; i < objectCount; i++) {
+            objectIndexes.put(objects[i].name, i);
+        }
+        structureVersion++;
+    }
+    // Removes every object; models stay registered.
+    public static void clear() {
+        Arrays.fill(objects, 0, objectCount, null);
+        objectCount = 0;
+        objectIndexes.clear();
+        pendingDeletes.clear();
+        structureVersion++;
     }
     public static GameObject getObject(String name) {
-        return objects.get(name);
+        Integer index = objectIndexes.get(name);
+        return (index == null) ? null : objects[index];
     }
     public static GameObject getObject(int index) {
-        return getObjects()[index];
+        if (index >= objectCount) {
+            throw new IndexOutOfBoundsException("object index " + index + " out of bounds for " + objectCount);
+        }
+        return objects[index];
     }
     public static GameObject[] getObjects() {
-        return objects.values().toArray(new GameObject[0]);
+        return Arrays.copyOf(objects, objectCount);
     }
     public static int objectCount() {
-        return objects.size();
+        return objectCount;
+    }
+    // Bumped when objects are added or removed and when models are registered or removed, so caches that hold
+    // per-object models only have to watch model keys in between.
+    public static int structureVersion() {
+        return structureVersion;
     }
 
     public static void initializeScene() {
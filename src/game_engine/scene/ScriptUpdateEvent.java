@@ -0,0 +1,22 @@
+package game_engine.scene;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("game_engine.ScriptUpdate")
+@Label("Script Update")
+@Description("One update or fixedUpdate call of a GameObject's script")
+@Category({"Game Engine", "Scripts"})
+@Enabled(false)
+class ScriptUpdateEvent extends Event {
+    @Label("Object")
+    String object;
+    @Label("Script")
+    Class<?> script;
+    @Label("Fixed Step")
+    boolean fixed;
+}
@@ -21,6 +21,16 @@ public class Triangle {
         this.N = N;
     }
 
+    public int getVertexIndex(int corner) {
+        return (corner == 0) ? A : ((corner == 1) ? B : C);
+    }
+    public int getUVIndex(int corner) {
+        return (corner == 0) ? uvA : ((corner == 1) ? uvB : uvC);
+    }
+    public int getNormalIndex() {
+        return N;
+    }
+
     public Float3[] getVertexes(Float3[] vertexes) {
         Float3 a = vertexes[A];
         Float3 b = vertexes[B];
@@ -8,6 +8,7 @@ import game_engine.math.Float3;
 import game_engine.math.Maths;
 import game_engine.physics.raycast_result;
 import game_engine.render.Camera;
+import game_engine.render.Profiler;
 import game_engine.scene.GameObject;
 import game_engine.scene.Scene;
 import game_engine.scene.Transform;
@@ -23,6 +24,20 @@ public class CameraPhysicsScript extends Script {
     private static final float ROTATION_SPEED = 50f;
 
     private player_phys physics = new player_phys();
+    private Float3 previousPhysicsPos = null;
+    private boolean jumpRequested = false;
+
+    @Override
+    public void fixedUpdate(GameObject obj) {
+        Float3 pos = physics.camera_pos;
+        previousPhysicsPos = new Float3(pos.x, pos.y, pos.z);
+
+        if (jumpRequested) {
+            physics.jump((float) fixedDeltaTime);
+            jumpRequested = false;
+        }
+        physics.updatePhysics((float) fixedDeltaTime);
+    }
 
     @Override
     public void update(GameObject obj) {
@@ -53,14 +68,17 @@ public class CameraPhysicsScript extends Script {
 
 
 
-        if (Input.keyDown(KeyEvent.VK_SPACE)) physics.jump((float) deltaTime);
-
+        if (Input.keyDown(KeyEvent.VK_SPACE)) jumpRequested = true;
 
-        physics.updatePhysics((float)deltaTime);
+        // physics runs in fixedUpdate; draw the player between its last two fixed steps
+        Float3 physicsPos = physics.camera_pos;
+        if (previousPhysicsPos != null) {
+            physicsPos = previousPhysicsPos.lerp(physicsPos, FixedTimestep.alpha);
+        }
 
-        transform.pos = physics.camera_pos.add(new Float3(0,2,0));
+        transform.pos = physicsPos.add(new Float3(0,2,0));
 
-        Scene.getObject("debug_marker").transform.pos =  physics.camera_pos;
+        Scene.getObject("debug_marker").transform.pos =  physicsPos;
 
         //System.out.println(physics.camera_pos);
 
@@ -83,11 +101,18 @@ public class CameraPhysicsScript extends Script {
         if (Input.keyDown(KeyEvent.VK_R)) Camera.fov = 30f;
         else if (Input.keyUp(KeyEvent.VK_R)) Camera.fov = 90f;
 
-        if (Input.keyDown(KeyEvent.VK_T)) Script.resetStats();
+        if (Input.keyDown(KeyEvent.VK_T)) {
+            Script.resetStats();
+            Camera.resetFrameStats();
+        }
+        if (Input.keyDown(KeyEvent.VK_P)) Camera.scheduler.nextMode();
+        if (Input.keyDown(KeyEvent.VK_O)) Profiler.overlay = !Profiler.overlay;
+        if (Input.keyDown(KeyEvent.VK_L)) Profiler.writeDump();
 
         if (Input.keyDown(KeyEvent.VK_E)) Camera.shaderOverride = !Camera.shaderOverride;
         if (Input.keyDown(KeyEvent.VK_Q)) Camera.showOverdraw = !Camera.showOverdraw;
         if (Input.keyDown(KeyEvent.VK_F)) Camera.shaderStatus = !Camera.shaderStatus;
+        if (Input.keyDown(KeyEvent.VK_V)) Camera.deferredShading = !Camera.deferredShading;
 
         if (Input.keyDown(KeyEvent.VK_1)) Scene.camera.mat.shader = new UnlitShader();
         else if (Input.keyDown(KeyEvent.VK_2)) Scene.camera.mat.shader = new WireframeShader();
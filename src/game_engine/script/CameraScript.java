@@ -6,6 +6,7 @@ import game_engine.math.Float2;
 import game_engine.math.Float3;
 import game_engine.math.Maths;
 import game_engine.render.Camera;
+import game_engine.render.Profiler;
 import game_engine.scene.GameObject;
 import game_engine.scene.Scene;
 import game_engine.scene.Transform;
@@ -34,11 +35,18 @@ public class CameraScript extends Script {
         if (Input.keyDown(KeyEvent.VK_R)) Camera.fov = 30f;
         else if (Input.keyUp(KeyEvent.VK_R)) Camera.fov = 90f;
 
-        if (Input.keyDown(KeyEvent.VK_T)) Script.resetStats();
+        if (Input.keyDown(KeyEvent.VK_T)) {
+            Script.resetStats();
+            Camera.resetFrameStats();
+        }
+        if (Input.keyDown(KeyEvent.VK_P)) Camera.scheduler.nextMode();
+        if (Input.keyDown(KeyEvent.VK_O)) Profiler.overlay = !Profiler.overlay;
+        if (Input.keyDown(KeyEvent.VK_L)) Profiler.writeDump();
 
         if (Input.keyDown(KeyEvent.VK_E)) Camera.shaderOverride = !Camera.shaderOverride;
         if (Input.keyDown(KeyEvent.VK_Q)) Camera.showOverdraw = !Camera.showOverdraw;
         if (Input.keyDown(KeyEvent.VK_F)) Camera.shaderStatus = !Camera.shaderStatus;
+        if (Input.keyDown(KeyEvent.VK_V)) Camera.deferredShading = !Camera.deferredShading;
 
         if (Input.keyDown(KeyEvent.VK_1)) Scene.camera.mat.shader = new UnlitShader();
         else if (Input.keyDown(KeyEvent.VK_2)) Scene.camera.mat.shader = new WireframeShader();
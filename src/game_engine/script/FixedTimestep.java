@@ -0,0 +1,39 @@
+package game_engine.script;
+
+import game_engine.scene.Scene;
+
+// Runs Script.fixedUpdate at a constant rate, independent of how fast frames are produced. Frame time is
+// collected in an accumulator and spent in whole steps; at most maxSubsteps run per frame and any time beyond
+// that is dropped, so a slow frame slows the simulation down instead of feeding it one huge step.
+public abstract class FixedTimestep {
+    public static double rate = 60d;
+    public static int maxSubsteps = 5;
+
+    // fraction of a step accumulated but not yet simulated, in [0, 1); scripts interpolate between the last
+    // two fixed states with it when they update the transforms that get drawn
+    public static double alpha = 0d;
+    public static int lastSteps = 0;
+    public static double droppedTime = 0d;
+    private static double accumulator = 0d;
+
+    public static int advance(double frameTime) {
+        double step = 1d / rate;
+        Script.fixedDeltaTime = step;
+        accumulator += frameTime;
+
+        int steps = 0;
+        while (accumulator >= step && steps < maxSubsteps) {
+            Scene.fixedUpdateScripts();
+            accumulator -= step;
+            steps++;
+        }
+        if (accumulator >= step) {
+            double kept = accumulator % step;
+            droppedTime += accumulator - kept;
+            accumulator = kept;
+        }
+        alpha = accumulator / step;
+        lastSteps = steps;
+        return steps;
+    }
+}
@@ -3,23 +3,29 @@ package game_engine.script;
 import game_engine.math.Float2;
 
 import java.awt.event.KeyEvent;
-import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public abstract class Input {
+    // Events arrive on the window thread while scripts read input on the simulation thread.
+    private static final Object mouseLock = new Object();
     private static Float2 mouseDelta = new Float2();
 
     public static Float2 getMouseDelta() {
-        return mouseDelta;
+        synchronized (mouseLock) {
+            return new Float2(mouseDelta.x, mouseDelta.y);
+        }
     }
 
     public static void moveMouse(float dx, float dy) {
-        mouseDelta.offset(dx, dy);
+        synchronized (mouseLock) {
+            mouseDelta.offset(dx, dy);
+        }
     }
 
 
-    private static final Set<Integer> lastKeys = new HashSet<>();
-    private static final Set<Integer> pressedKeys = new HashSet<>();
+    private static final Set<Integer> lastKeys = ConcurrentHashMap.newKeySet();
+    private static final Set<Integer> pressedKeys = ConcurrentHashMap.newKeySet();
 
     public static boolean keyPressed(int keyCode) {
         return pressedKeys.contains(keyCode);
@@ -52,6 +58,8 @@ public abstract class Input {
     public static void updateInput() {
         lastKeys.clear();
         lastKeys.addAll(pressedKeys);
-        mouseDelta = new Float2();
+        synchronized (mouseLock) {
+            mouseDelta = new Float2();
+        }
     }
 }
@@ -5,6 +5,7 @@ import game_engine.scene.GameObject;
 public abstract class Script {
     private static long lastFrameNanoTime = -1L;
     public static double deltaTime = 0d;
+    public static double fixedDeltaTime = 1d / 60d;
     public static double time = 0d;
     public static double fps = 0d;
     public static double fpsMin = Float.MAX_VALUE;
@@ -27,4 +28,7 @@ public abstract class Script {
     }
 
     public abstract void update(GameObject obj);
+
+    // Called by FixedTimestep with a constant fixedDeltaTime, before update() of the same frame.
+    public void fixedUpdate(GameObject obj) {}
 }
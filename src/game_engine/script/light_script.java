@@ -2,14 +2,14 @@ package game_engine.script;
 
 import game_engine.math.Float3;
 import game_engine.math.Maths;
-import game_engine.physics.raycast;
-import game_engine.physics.raycast_result;
+import game_engine.physics.RayBatch;
 import game_engine.scene.GameObject;
 import game_engine.scene.Scene;
 import game_engine.scene.Transform;
 
 public class light_script extends Script {
     int wait_time = 0;
+    private final RayBatch rays = new RayBatch(128);
     @Override
     public void update(GameObject obj) {
         wait_time += 1;
@@ -17,6 +17,8 @@ public class light_script extends Script {
             return;
         }
         wait_time = 0;
+
+    rays.clear();
     for (int x=235;x<325-45; x += 10){
         for (int y=0;y<360; y += 36){
 
@@ -29,8 +31,14 @@ public class light_script extends Script {
 
             //direction = new Float3 (0,-1,0);
 
-            raycast_result ray_result = raycast.raycast(obj.transform.pos,direction,20);
-            //System.out.println(ray_result.collision);
+            rays.add(obj.transform.pos,direction,20);
+        }
+        }
+    rays.trace();
+
+    int ray = 0;
+    for (int x=235;x<325-45; x += 10){
+        for (int y=0;y<360; y += 36){
             String objName = "light_obj" + x + y;
             //System.out.println(objName);
             //System.out.println(Scene.getObject(objName));
@@ -38,12 +46,13 @@ public class light_script extends Script {
                 Scene.add(new GameObject(objName,"debug_marker",x, y, 0f, 0f, 0f, 0f, 0.5f,obj.mat,null));
 
             }
-            Scene.getObject(objName).transform.pos = ray_result.position;
+            rays.getPosition(ray, Scene.getObject(objName).transform.pos);
             //Scene.getObject(objName).transform.pos = obj.transform.pos.add(direction.scale(10));
-            if (ray_result.collision){
+            if (rays.hits[ray]){
 
 
             }
+            ray++;
 
 
 